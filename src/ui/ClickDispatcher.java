@@ -0,0 +1,186 @@
+package ui;
+
+import java.util.ArrayDeque;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * This class delivers ClickEvents to ClickListeners. Without an executor the
+ * listeners are called directly by the thread dispatching the event, i.e. the
+ * event dispatch thread. With an executor every listener is called on the
+ * executor instead, so listeners doing lengthy work, e.g. computing the move of
+ * an AI player, do not freeze the ui.
+ * <p>
+ * Each listener receives its events one at a time and in the order of the
+ * clicks, even if the executor runs tasks in parallel. Different listeners may
+ * handle events at the same time.
+ *
+ * @author Niklas S.
+ *
+ */
+class ClickDispatcher {
+
+	private Executor executor; // null to call listeners directly
+	private final java.util.Map<ClickListener, SerialQueue> queues = new WeakHashMap<>(); // weak listeners may vanish
+
+	/**
+	 * Setter for the executor calling the listeners. Events queued before the
+	 * change are still delivered before any later event of the same listener, the
+	 * executor only changes for the events that follow them.
+	 *
+	 * @param executor is the new executor. Should executor be null listeners will
+	 *                 be called by the dispatching thread.
+	 */
+	synchronized void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Getter for the executor calling the listeners.
+	 *
+	 * @return the executor or null should listeners be called by the dispatching
+	 *         thread.
+	 */
+	synchronized Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Delivers an event to a listener. Should the executor not accept the event,
+	 * e.g. because it was shut down, the rejection is reported to the uncaught
+	 * exception handler of the dispatching thread and the event is dropped for
+	 * this listener only, so the remaining listeners still receive it.
+	 *
+	 * @param cl is the listener.
+	 * @param e  is the event.
+	 */
+	void dispatch(ClickListener cl, ClickEvent e) {
+		SerialQueue queue;
+		synchronized (this) {
+			queue = queues.get(cl);
+			if (queue == null && executor != null) {
+				queue = new SerialQueue();
+				queues.put(cl, queue);
+			}
+		}
+
+		if (queue == null) {
+			cl.handleClick(e);
+			return;
+		}
+
+		try {
+			queue.add(() -> cl.handleClick(e));
+		} catch (RejectedExecutionException ex) {
+			Thread thread = Thread.currentThread();
+			thread.getUncaughtExceptionHandler().uncaughtException(thread, ex);
+		}
+	}
+
+	/**
+	 * Drops all events queued for a listener that have not been delivered yet.
+	 *
+	 * @param cl is the listener that was removed.
+	 */
+	synchronized void remove(ClickListener cl) {
+		SerialQueue queue = queues.remove(cl);
+		if (queue != null)
+			queue.clear();
+	}
+
+	/**
+	 * This class runs the tasks of one listener one after another in the order
+	 * they were added. Each task is run by the executor of the dispatcher at the
+	 * time it is started, or directly should there be none. At most one task of a
+	 * queue is handed to an executor at a time: it keeps running the following
+	 * tasks in a loop until the queue is empty or the executor was changed.
+	 *
+	 * @author Niklas S.
+	 *
+	 */
+	private class SerialQueue {
+
+		private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+		private boolean running;
+
+		/**
+		 * Adds a task and starts running the queue should it be idle.
+		 *
+		 * @param task is the task to be added.
+		 */
+		void add(Runnable task) {
+			synchronized (this) {
+				tasks.add(task);
+				if (running)
+					return;
+				running = true;
+			}
+
+			start();
+		}
+
+		synchronized void clear() {
+			tasks.clear();
+		}
+
+		/**
+		 * Hands the queue to the current executor or runs it directly should there
+		 * be none. Must only be called while running is set and not while holding
+		 * the lock of the queue.
+		 */
+		private void start() {
+			Executor executor = getExecutor();
+			if (executor == null) {
+				drain(null);
+				return;
+			}
+
+			try {
+				executor.execute(() -> drain(executor));
+			} catch (RejectedExecutionException e) {
+				synchronized (this) {
+					tasks.clear();
+					running = false;
+				}
+				throw e;
+			}
+		}
+
+		/**
+		 * Runs the queued tasks until the queue is empty or the executor of the
+		 * dispatcher changed, in which case the remaining tasks are handed to the
+		 * new one. Should a task throw the remaining tasks are started again before
+		 * the exception is passed on.
+		 *
+		 * @param executor is the executor running this method or null.
+		 */
+		private void drain(Executor executor) {
+			boolean handedOn = false;
+			try {
+				while (true) {
+					Runnable task;
+					synchronized (this) {
+						task = tasks.poll();
+						if (task == null) {
+							running = false;
+							handedOn = true;
+							return;
+						}
+					}
+
+					task.run();
+
+					if (getExecutor() != executor) {
+						handedOn = true;
+						start();
+						return;
+					}
+				}
+			} finally {
+				if (!handedOn)
+					start();
+			}
+		}
+	}
+}
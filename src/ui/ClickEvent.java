@@ -6,13 +6,15 @@ import ui.Map.Country;
  * This class is the Event that is created when a click occurs on the Map. It
  * stores the Country below the cursor at that time. The Country will be null if
  * the Ocean was clicked.
+ * <p>
+ * ClickEvents are immutable and can be handed to other threads.
  * 
  * @author Niklas S.
  *
  */
 public class ClickEvent {
 
-	private Country c;
+	private final Country c;
 
 	/**
 	 * Constructor specifying the Country.
@@ -0,0 +1,286 @@
+package ui;
+
+import java.util.Arrays;
+
+/**
+ * This class stores which countries of a map are neighbours. Every country is
+ * a node identified by its numId. Adjacency is kept twice: as one bitset per
+ * country for constant time neighbour checks and as a compressed sparse row
+ * (CSR) index listing the neighbours of all countries in one array for fast
+ * iteration without allocating.
+ * <p>
+ * The CSR index and the all pairs hop distances are rebuilt lazily the first
+ * time they are needed after an edge was added, so adding many edges in a row
+ * stays cheap.
+ * <p>
+ * Graph queries take an optional mask selecting the countries they may visit.
+ * A mask of null allows all countries.
+ *
+ * @author Niklas S.
+ *
+ */
+class CountryGraph {
+
+	private final int size;
+	private final long[][] bits; // bits[a] has bit b set if a and b are neighbours
+
+	private volatile Csr csr;
+	private volatile int[] distances; // all pairs hop distances, size * size
+
+	/**
+	 * Constructor creating a graph without any edges.
+	 *
+	 * @param size is the number of countries.
+	 */
+	CountryGraph(int size) {
+		this.size = size;
+
+		bits = new long[size][(size + 63) / 64];
+	}
+
+	/**
+	 * Getter for the number of countries in the graph.
+	 *
+	 * @return the number of countries.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Adds an undirected edge between two countries.
+	 *
+	 * @param a is the numId of the first country.
+	 * @param b is the numId of the second country.
+	 */
+	synchronized void addEdge(int a, int b) {
+		if (isNeighbour(a, b))
+			return;
+
+		bits[a][b >>> 6] |= 1L << b;
+		bits[b][a >>> 6] |= 1L << a;
+		csr = null;
+		distances = null;
+	}
+
+	/**
+	 * Checks whether there is an edge between two countries.
+	 *
+	 * @param a is the numId of the first country.
+	 * @param b is the numId of the second country.
+	 * @return true if the countries are neighbours.
+	 */
+	boolean isNeighbour(int a, int b) {
+		return (bits[a][b >>> 6] & (1L << b)) != 0;
+	}
+
+	/**
+	 * Getter for the number of neighbours of a country.
+	 *
+	 * @param a is the numId of the country.
+	 * @return the number of neighbours.
+	 */
+	int degree(int a) {
+		Csr csr = csr();
+		return csr.offsets[a + 1] - csr.offsets[a];
+	}
+
+	/**
+	 * Getter for a neighbour of a country. The neighbours are ordered by numId.
+	 *
+	 * @param a is the numId of the country.
+	 * @param i is the index of the neighbour, between 0 and degree(a).
+	 * @return the numId of the neighbour.
+	 */
+	int neighbour(int a, int i) {
+		Csr csr = csr();
+		return csr.targets[csr.offsets[a] + i];
+	}
+
+	/**
+	 * Getter for the CSR index, rebuilding it should edges have been added since
+	 * it was last built.
+	 *
+	 * @return the current CSR index.
+	 */
+	Csr csr() {
+		Csr csr = this.csr;
+		if (csr != null)
+			return csr;
+
+		synchronized (this) {
+			if (this.csr == null)
+				this.csr = new Csr(bits, size);
+			return this.csr;
+		}
+	}
+
+	/**
+	 * Runs a breadth first search from the source through all allowed countries.
+	 *
+	 * @param source  is the numId of the country to start from. It is visited
+	 *                even if it is not allowed.
+	 * @param allowed is the mask of countries that may be visited, null for all.
+	 * @param dist    receives the hop distance from the source for every country,
+	 *                -1 for countries that were not reached.
+	 * @param parent  receives the country each country was reached from, -1 for
+	 *                the source and countries that were not reached. May be null.
+	 * @param order   receives the reached countries in the order they were
+	 *                visited, which is ordered by their distance. It has to hold
+	 *                every country. May be null.
+	 * @return the number of reached countries, including the source.
+	 */
+	int bfs(int source, boolean[] allowed, int[] dist, int[] parent, int[] order) {
+		Csr csr = csr();
+		int[] queue = order != null ? order : new int[size];
+		int head = 0, tail = 0;
+
+		Arrays.fill(dist, -1);
+		if (parent != null)
+			Arrays.fill(parent, -1);
+
+		dist[source] = 0;
+		queue[tail++] = source;
+		while (head < tail) {
+			int a = queue[head++];
+
+			for (int i = csr.offsets[a]; i < csr.offsets[a + 1]; i++) {
+				int b = csr.targets[i];
+				if (dist[b] != -1 || (allowed != null && !allowed[b]))
+					continue;
+
+				dist[b] = dist[a] + 1;
+				if (parent != null)
+					parent[b] = a;
+				queue[tail++] = b;
+			}
+		}
+		return tail;
+	}
+
+	/**
+	 * Getter for the hop distance between two countries over the whole graph. The
+	 * distances between all pairs of countries are computed once with one breadth
+	 * first search per country and reused until an edge is added.
+	 *
+	 * @param a is the numId of the first country.
+	 * @param b is the numId of the second country.
+	 * @return the smallest number of borders to cross to get from a to b, -1
+	 *         should b not be reachable from a.
+	 */
+	int distance(int a, int b) {
+		int[] distances = this.distances;
+		if (distances == null) {
+			synchronized (this) {
+				if (this.distances == null) {
+					int[] all = new int[size * size];
+					int[] dist = new int[size];
+					for (int source = 0; source < size; source++) {
+						bfs(source, null, dist, null, null);
+						System.arraycopy(dist, 0, all, source * size, size);
+					}
+					this.distances = all;
+				}
+				distances = this.distances;
+			}
+		}
+
+		return distances[a * size + b];
+	}
+
+	/**
+	 * Labels the connected components formed by the allowed countries.
+	 *
+	 * @param allowed is the mask of countries that form the components, null for
+	 *                all.
+	 * @param labels  receives the component of every country numbered from 0 in
+	 *                the order of their lowest numId, -1 for countries that are
+	 *                not allowed.
+	 * @return the number of components.
+	 */
+	int components(boolean[] allowed, int[] labels) {
+		Csr csr = csr();
+		int[] stack = new int[size];
+		int count = 0;
+
+		Arrays.fill(labels, -1);
+		for (int start = 0; start < size; start++) {
+			if (labels[start] != -1 || (allowed != null && !allowed[start]))
+				continue;
+
+			int top = 0;
+			labels[start] = count;
+			stack[top++] = start;
+			while (top > 0) {
+				int a = stack[--top];
+
+				for (int i = csr.offsets[a]; i < csr.offsets[a + 1]; i++) {
+					int b = csr.targets[i];
+					if (labels[b] != -1 || (allowed != null && !allowed[b]))
+						continue;
+
+					labels[b] = count;
+					stack[top++] = b;
+				}
+			}
+			count++;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Checks whether an allowed country borders a country that is not allowed.
+	 *
+	 * @param a       is the numId of the country to check.
+	 * @param allowed is the mask of countries forming the region.
+	 * @return true if a has at least one neighbour outside the region.
+	 */
+	boolean isBorder(int a, boolean[] allowed) {
+		Csr csr = csr();
+
+		for (int i = csr.offsets[a]; i < csr.offsets[a + 1]; i++)
+			if (!allowed[csr.targets[i]])
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * This class is an immutable compressed sparse row index of the neighbours of
+	 * all countries. The neighbours of country a are stored in targets from
+	 * offsets[a] (inclusive) to offsets[a + 1] (exclusive), ordered by numId.
+	 *
+	 * @author Niklas S.
+	 *
+	 */
+	static final class Csr {
+
+		final int[] offsets;
+		final int[] targets;
+
+		/**
+		 * Constructor building the index from the bitsets of all countries.
+		 *
+		 * @param bits are the bitsets of all countries.
+		 * @param size is the number of countries.
+		 */
+		private Csr(long[][] bits, int size) {
+			offsets = new int[size + 1];
+			for (int a = 0; a < size; a++) {
+				int degree = 0;
+				for (long word : bits[a])
+					degree += Long.bitCount(word);
+				offsets[a + 1] = offsets[a] + degree;
+			}
+
+			targets = new int[offsets[size]];
+			for (int a = 0; a < size; a++) {
+				int i = offsets[a];
+				for (int w = 0; w < bits[a].length; w++)
+					for (long word = bits[a][w]; word != 0; word &= word - 1)
+						targets[i++] = w * 64 + Long.numberOfTrailingZeros(word);
+			}
+		}
+	}
+}
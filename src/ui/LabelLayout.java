@@ -0,0 +1,106 @@
+package ui;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+
+/**
+ * This class holds the laid out lines of a country's label for one font. The
+ * glyphs and widths of all lines are computed once and reused for every frame
+ * the label is drawn in, as long as neither the label nor the font change.
+ * <p>
+ * Lines are centered horizontally on the anchor of the label. The baseline of
+ * the first line lies on the anchor and each further line is moved down by 0.9
+ * times the font size.
+ *
+ * @author Niklas S.
+ *
+ */
+class LabelLayout {
+
+	private final String label;
+	private final Font font;
+	private final FontRenderContext frc;
+
+	private final GlyphVector[] lines;
+	private final float[] widths;
+	private final float width;
+
+	/**
+	 * Constructor laying out the label.
+	 *
+	 * @param label is the label with lines separated by \n.
+	 * @param font  is the font the label is drawn with.
+	 * @param frc   is the context the label is drawn in.
+	 */
+	LabelLayout(String label, Font font, FontRenderContext frc) {
+		this.label = label;
+		this.font = font;
+		this.frc = frc;
+
+		String[] text = label.split("\n");
+		lines = new GlyphVector[text.length];
+		widths = new float[text.length];
+		float width = 0;
+		for (int i = 0; i < text.length; i++) {
+			lines[i] = font.createGlyphVector(frc, text[i]);
+			widths[i] = (float) lines[i].getLogicalBounds().getWidth();
+			width = Math.max(width, widths[i]);
+		}
+		this.width = width;
+	}
+
+	/**
+	 * Checks whether this layout can be used to draw a label.
+	 *
+	 * @param label is the label to be drawn.
+	 * @param font  is the font it is to be drawn with.
+	 * @param frc   is the context it is to be drawn in.
+	 * @return true if the layout was created for the same label, font and context.
+	 */
+	boolean matches(String label, Font font, FontRenderContext frc) {
+		return this.label.equals(label) && this.font.equals(font) && this.frc.equals(frc);
+	}
+
+	/**
+	 * Draws the label with the current color of the graphics.
+	 *
+	 * @param g is the graphics to draw with.
+	 * @param x is the x coordinate of the anchor in screenspace.
+	 * @param y is the y coordinate of the anchor in screenspace.
+	 */
+	void draw(Graphics2D g, float x, float y) {
+		for (int i = 0; i < lines.length; i++)
+			g.drawGlyphVector(lines[i], x - widths[i] / 2, y + .9f * font.getSize() * i);
+	}
+
+	/**
+	 * Getter for the width of the widest line.
+	 *
+	 * @return the width in screenspace.
+	 */
+	float getWidth() {
+		return width;
+	}
+
+	/**
+	 * Getter for how far the label reaches above its anchor, generously covering
+	 * the ascent of the first line.
+	 *
+	 * @return the distance in screenspace.
+	 */
+	float getAbove() {
+		return font.getSize();
+	}
+
+	/**
+	 * Getter for how far the label reaches below its anchor, generously covering
+	 * the descent of the last line.
+	 *
+	 * @return the distance in screenspace.
+	 */
+	float getBelow() {
+		return .9f * font.getSize() * (lines.length - 1) + .5f * font.getSize();
+	}
+}
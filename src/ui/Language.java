@@ -1,77 +1,84 @@
 package ui;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Scanner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 /**
  * This class loads and handles all language data stored in
- * ui/resources/languages.txt in json format.
+ * ui/resources/languages.txt in json format. Additional languages, or
+ * translations overriding bundled ones, can be loaded from language packs in
+ * the same format with {@link #loadLanguagePack(Path)}.
+ * <p>
+ * Only the values of the preferred language are kept in memory. They are read
+ * with a {@link LanguageReader} when the preference changes, skipping the
+ * values of all other languages. Every value is split into its literal text and
+ * its argument placeholders when it is loaded, so
+ * {@link #get(String, Object...)} only needs one hash lookup and one pass over
+ * the pieces to build a String.
  * 
  * @author Niklas S.
  *
  */
 public class Language {
 
-	private static int preference = 0;
-	static String[] languages;
-	static List<String[]> keyValues;
+	private static final String BUNDLED = "/ui/resources/languages.txt";
 
-	static { // TODO: load with JSON parser
-		// load language file
-		InputStream is = Map.class.getResourceAsStream("/ui/resources/languages.txt");
-		Scanner sc = new Scanner(is);
-		List<String> lines = new ArrayList<>();
+	private static final List<Source> sources = new ArrayList<>(); // bundled file first, later ones override
+	private static String preference;
+	static volatile String[] languages = new String[0];
+	private static volatile java.util.Map<String, Template> templates = new HashMap<>(); // of the preference
 
-		while (sc.hasNextLine()) {
-			lines.add(sc.nextLine().split("//")[0]); // line without potential line comment
+	static {
+		try {
+			addSource(new Source(null));
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
-
-		sc.close();
-
-		// parsing line data
-		String[] langHeads = lines.get(0).split("\"");
-		languages = new String[(langHeads.length - 3) / 2];
-		for (int i = 0; i < languages.length; i++)
-			languages[i] = langHeads[i * 2 + 3];
-
-		lines.remove(0);
-		lines.remove(0);
-		lines.remove(lines.size() - 1);
-
-		keyValues = new ArrayList<>();
-
-		String appended = "";
-		for (String string : lines)
-			appended += string;
-
-		Pattern p = Pattern.compile("\\s*\"(.*?)\" : \\{ \"(.*?)\", \"(.*?)\" \\}");
-		Matcher m = p.matcher(appended);
-		while (m.find())
-			keyValues.add(new String[] { m.group(1), m.group(2), m.group(3) });
-
 	}
 
 	/**
 	 * This Method sets the language preference stored. The language preference is
-	 * stored and used to select translations.
+	 * stored and used to select translations. Keys without a translation in the
+	 * preferred language, e.g. because a language pack only translates some of
+	 * them, keep the text of the first bundled language.
 	 * 
 	 * @param lang is the language that will be stored as the new language
 	 *             preference. Should no language preference exist that equals to
 	 *             lang or should lang be null the previous preference will remain.
 	 */
-	public static void setLanguagePreference(String lang) {
-		if (lang == null)
+	public static synchronized void setLanguagePreference(String lang) {
+		if (lang == null || lang.equals(preference) || !Arrays.asList(languages).contains(lang))
 			return;
 
-		for (int i = 0; i < languages.length; i++)
-			if (languages[i].equals(lang)) {
-				preference = i;
-				return;
+		java.util.Map<String, Template> loaded = new HashMap<>();
+		Source bundled = sources.get(0);
+		try {
+			// keys a language pack does not translate keep the default language's text
+			if (bundled.languages.length > 0 && !bundled.languages[0].equals(lang))
+				bundled.readValues(bundled.languages[0], loaded);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		for (Source source : sources)
+			try {
+				source.readValues(lang, loaded);
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
+
+		preference = lang;
+		templates = loaded;
 	}
 
 	/**
@@ -80,8 +87,56 @@ public class Language {
 	 * 
 	 * @return the current language preference.
 	 */
-	public static String getLanguagePreference() {
-		return languages[preference];
+	public static synchronized String getLanguagePreference() {
+		return preference;
+	}
+
+	/**
+	 * Getter for all languages of the bundled language data and the loaded
+	 * language packs.
+	 * 
+	 * @return the languages in the order they were declared.
+	 */
+	public static String[] getLanguages() {
+		return languages.clone();
+	}
+
+	/**
+	 * Loads a language pack from a file. The file is read in the same format as
+	 * ui/resources/languages.txt. Its languages become available as language
+	 * preferences, and its values replace values of the same key and language
+	 * that were loaded before. Only the declaration of the languages and the
+	 * values of the current preference are read now; the values of other
+	 * languages are read from the file when they are selected.
+	 * 
+	 * @param file is the language pack.
+	 * @throws IOException should the file not be readable.
+	 */
+	public static synchronized void loadLanguagePack(Path file) throws IOException {
+		addSource(new Source(file));
+	}
+
+	/**
+	 * Adds a source of language data and loads its values of the current
+	 * preference. Should no preference exist yet the first language of the source
+	 * will be selected.
+	 * 
+	 * @param source is the source to be added.
+	 * @throws IOException should the values not be readable.
+	 */
+	private static synchronized void addSource(Source source) throws IOException {
+		if (preference == null && source.languages.length > 0)
+			preference = source.languages[0];
+
+		java.util.Map<String, Template> loaded = new HashMap<>(templates);
+		source.readValues(preference, loaded);
+
+		sources.add(source);
+		templates = loaded;
+
+		Set<String> all = new LinkedHashSet<>(Arrays.asList(languages));
+		all.addAll(Arrays.asList(source.languages));
+		languages = all.toArray(new String[0]);
 	}
 
 	/**
@@ -97,17 +152,169 @@ public class Language {
 	 * @return the language data with placeholders replaced with arguments.
 	 */
 	public static String get(String id, Object... args) {
-		for (String[] sa : keyValues)
-			if (sa[0].equals(id)) {
-				String filledVal = sa[1 + preference];
+		Template value = templates.get(id);
+		if (value == null)
+			return null;
+
+		return value.fill(args);
+	}
+
+	/**
+	 * This class is a file of language data. The languages it declares are read
+	 * once, its values are read again every time they are needed.
+	 * 
+	 * @author Niklas S.
+	 *
+	 */
+	private static final class Source {
+
+		private final Path file; // null for the bundled language data
+		private final String[] languages;
+
+		/**
+		 * Constructor reading the languages declared by a file of language data.
+		 * 
+		 * @param file is the file or null for the bundled language data.
+		 * @throws IOException should the file not be readable.
+		 */
+		Source(Path file) throws IOException {
+			this.file = file;
+
+			try (LanguageReader reader = open()) {
+				languages = reader.readLanguages();
+			}
+		}
+
+		/**
+		 * Reads the values of a language and adds them to a map, replacing values
+		 * with the same keys.
+		 * 
+		 * @param lang      is the language to be read. Should the source not
+		 *                  declare it nothing will be read.
+		 * @param templates receives the compiled values.
+		 * @throws IOException should the file not be readable.
+		 */
+		void readValues(String lang, java.util.Map<String, Template> templates) throws IOException {
+			int index = Arrays.asList(languages).indexOf(lang);
+			if (index < 0)
+				return;
+
+			try (LanguageReader reader = open()) {
+				reader.readLanguages();
+				reader.readValues(index, (key, value) -> templates.put(key, Template.compile(value)));
+			}
+		}
+
+		/**
+		 * Opens the file for reading.
+		 * 
+		 * @return a reader positioned at the start of the file.
+		 * @throws IOException should the file not be readable.
+		 */
+		private LanguageReader open() throws IOException {
+			Reader in;
+			if (file != null) {
+				in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+			} else {
+				InputStream is = Language.class.getResourceAsStream(BUNDLED);
+				if (is == null)
+					throw new IOException("language data " + BUNDLED + " not found");
+				in = new InputStreamReader(is, StandardCharsets.UTF_8);
+			}
+			return new LanguageReader(in);
+		}
+	}
 
-				for (int i = 0; i < args.length; i++)
-					if (args[i] != null)
-						filledVal = filledVal.replaceAll("\\[" + i + "\\]", args[i].toString());
+	/**
+	 * This class is a language value split at its placeholders. A value is stored
+	 * as the literal text between the placeholders and the argument indices of the
+	 * placeholders, e.g. "&lt;b&gt;[0]&lt;/b&gt; attacks [1]" is stored as the
+	 * literals "&lt;b&gt;", "&lt;/b&gt; attacks ", "" and the slots 0, 1.
+	 * 
+	 * @author Niklas S.
+	 *
+	 */
+	static final class Template {
+
+		private final String[] literals; // one more than slots
+		private final int[] slots;
+		private final String[] placeholders; // original text of each slot, kept when it is not filled
+		private final int length; // length of all literals
+
+		private Template(String[] literals, int[] slots, String[] placeholders) {
+			this.literals = literals;
+			this.slots = slots;
+			this.placeholders = placeholders;
+
+			int length = 0;
+			for (String literal : literals)
+				length += literal.length();
+			this.length = length;
+		}
+
+		/**
+		 * Splits a language value at its placeholders. A placeholder is a decimal
+		 * argument index without leading zeros in square brackets, e.g. "[0]" or
+		 * "[12]". Anything else in square brackets, e.g. "[007]", is literal text.
+		 * 
+		 * @param value is the language value.
+		 * @return the compiled value.
+		 */
+		static Template compile(String value) {
+			List<String> literals = new ArrayList<>();
+			List<Integer> slots = new ArrayList<>();
+			List<String> placeholders = new ArrayList<>();
 
-				return filledVal;
+			int literalStart = 0;
+			for (int i = 0; i < value.length(); i++) {
+				if (value.charAt(i) != '[')
+					continue;
+
+				int end = i + 1;
+				while (end < value.length() && value.charAt(end) >= '0' && value.charAt(end) <= '9')
+					end++;
+				if (end == i + 1 || end - i > 10 || end == value.length() || value.charAt(end) != ']')
+					continue; // not a placeholder
+				if (value.charAt(i + 1) == '0' && end > i + 2)
+					continue; // leading zero, only the exact text "[i]" is filled
+
+				literals.add(value.substring(literalStart, i));
+				slots.add(Integer.parseInt(value.substring(i + 1, end)));
+				placeholders.add(value.substring(i, end + 1));
+				literalStart = end + 1;
+				i = end;
 			}
+			literals.add(value.substring(literalStart));
+
+			int[] slotArray = new int[slots.size()];
+			for (int i = 0; i < slotArray.length; i++)
+				slotArray[i] = slots.get(i);
+
+			return new Template(literals.toArray(new String[0]), slotArray, placeholders.toArray(new String[0]));
+		}
+
+		/**
+		 * Inserts arguments into the placeholders of this value.
+		 * 
+		 * @param args are the arguments. Placeholders whose index is not in args or
+		 *             whose argument is null remain in the returned String.
+		 * @return the value with the placeholders replaced.
+		 */
+		String fill(Object[] args) {
+			if (slots.length == 0)
+				return literals[0];
 
-		return null;
+			StringBuilder sb = new StringBuilder(length + 16 * slots.length);
+			sb.append(literals[0]);
+			for (int i = 0; i < slots.length; i++) {
+				int slot = slots[i];
+				if (args != null && slot < args.length && args[slot] != null)
+					sb.append(args[slot]);
+				else
+					sb.append(placeholders[i]);
+				sb.append(literals[i + 1]);
+			}
+			return sb.toString();
+		}
 	}
 }
@@ -0,0 +1,352 @@
+package ui;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * This class reads language data files like ui/resources/languages.txt one
+ * character at a time without loading the whole file into memory. A file
+ * declares its languages first and then lists the values of every key, one per
+ * language in the same order:
+ * <p>
+ * {@code "languages" : { "eng", "ger" },}<br>
+ * {@code "values" : { "attack_confirm" : { "Attack", "Attacke" } }}
+ * <p>
+ * The format is lenient JSON: lists may be written with braces or brackets, the
+ * surrounding braces of the document may be omitted, trailing commas are
+ * allowed and "//" starts a comment that lasts until the end of the line.
+ *
+ * @author Niklas S.
+ *
+ */
+final class LanguageReader implements Closeable {
+
+	private static final int NONE = -2; // no character peeked
+
+	private final Reader in;
+	private int peeked = NONE;
+	private int line = 1;
+
+	private boolean started;
+	private int documentClose; // '}' or -1 should the document have no braces
+
+	/**
+	 * Constructor creating a reader for language data.
+	 *
+	 * @param in is the source of the language data.
+	 */
+	LanguageReader(Reader in) {
+		this.in = in instanceof BufferedReader ? in : new BufferedReader(in);
+	}
+
+	/**
+	 * Reads the declaration of the languages. Everything after the declaration
+	 * remains unread.
+	 *
+	 * @return the languages in the order their values are listed in.
+	 * @throws IOException should the data not be readable or the values be listed
+	 *                     before the languages are declared.
+	 */
+	String[] readLanguages() throws IOException {
+		String name;
+		while ((name = nextMember()) != null) {
+			if (name.equals("values"))
+				throw error("the languages must be declared before the values");
+			if (!name.equals("languages")) {
+				skipValue();
+				continue;
+			}
+
+			List<String> languages = new ArrayList<>();
+			int close = open();
+			while (hasNext(close))
+				languages.add(readString());
+			return languages.toArray(new String[0]);
+		}
+
+		throw error("no languages declared");
+	}
+
+	/**
+	 * Reads the values of one language. Values of all other languages are skipped
+	 * without being stored. Must be called after {@link #readLanguages()}.
+	 *
+	 * @param language is the index of the language in the declaration.
+	 * @param sink     receives every key with its value. Keys without a value for
+	 *                 the language are left out. A key with a single String
+	 *                 instead of a list has that value in every language.
+	 * @throws IOException should the data not be readable.
+	 */
+	void readValues(int language, BiConsumer<String, String> sink) throws IOException {
+		String name;
+		while ((name = nextMember()) != null) {
+			if (!name.equals("values")) {
+				skipValue();
+				continue;
+			}
+
+			int close = open();
+			while (hasNext(close)) {
+				String key = readString();
+				expect(':');
+
+				if (peek() == '"') {
+					sink.accept(key, readString());
+					continue;
+				}
+
+				String value = null;
+				int valuesClose = open();
+				for (int i = 0; hasNext(valuesClose); i++) {
+					if (i == language)
+						value = readString();
+					else
+						skipString();
+				}
+
+				if (value != null)
+					sink.accept(key, value);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * Reads the name of the next member of the document.
+	 *
+	 * @return the name or null should the document end.
+	 * @throws IOException should the data not be readable.
+	 */
+	private String nextMember() throws IOException {
+		if (!started) {
+			started = true;
+			if (peek() == '{') {
+				read();
+				documentClose = '}';
+			} else {
+				documentClose = -1;
+			}
+		}
+
+		if (!hasNext(documentClose))
+			return null;
+
+		String name = readString();
+		expect(':');
+		return name;
+	}
+
+	/**
+	 * Skips a String or a list including everything it contains.
+	 *
+	 * @throws IOException should the data not be readable.
+	 */
+	private void skipValue() throws IOException {
+		if (peek() == '"') {
+			skipString();
+			return;
+		}
+
+		int close = open();
+		while (hasNext(close)) {
+			skipValue();
+			if (peek() == ':') {
+				read();
+				skipValue();
+			}
+		}
+	}
+
+	/**
+	 * Reads the start of a list.
+	 *
+	 * @return the character that closes the list.
+	 * @throws IOException should the next character not start a list.
+	 */
+	private int open() throws IOException {
+		int c = peek();
+		if (c == '{') {
+			read();
+			return '}';
+		}
+		if (c == '[') {
+			read();
+			return ']';
+		}
+		throw error("expected '{' or '['");
+	}
+
+	/**
+	 * Skips commas and checks whether another element of a list follows.
+	 *
+	 * @param close is the character closing the list. It is consumed should the
+	 *              list end.
+	 * @return true if another element follows, false if the list ended.
+	 * @throws IOException should the data end within the list.
+	 */
+	private boolean hasNext(int close) throws IOException {
+		int c;
+		while ((c = peek()) == ',')
+			read();
+
+		if (c == close) {
+			read();
+			return false;
+		}
+		if (c == -1)
+			throw error("unexpected end of data");
+		return true;
+	}
+
+	/**
+	 * Consumes the next character, which must be c.
+	 *
+	 * @param c is the expected character.
+	 * @throws IOException should the next character be a different one.
+	 */
+	private void expect(char c) throws IOException {
+		if (peek() != c)
+			throw error("expected '" + c + "'");
+		read();
+	}
+
+	/**
+	 * Reads a String including its quotes.
+	 *
+	 * @return the String with its escape sequences resolved.
+	 * @throws IOException should the next value not be a String.
+	 */
+	private String readString() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		string(sb);
+		return sb.toString();
+	}
+
+	/**
+	 * Skips a String including its quotes.
+	 *
+	 * @throws IOException should the next value not be a String.
+	 */
+	private void skipString() throws IOException {
+		string(null);
+	}
+
+	/**
+	 * Reads a String including its quotes.
+	 *
+	 * @param sb receives the characters of the String. Should sb be null the
+	 *           characters are discarded.
+	 * @throws IOException should the next value not be a String.
+	 */
+	private void string(StringBuilder sb) throws IOException {
+		expect('"');
+
+		int c;
+		while ((c = read()) != '"') {
+			if (c == -1 || c == '\n')
+				throw error("unterminated string");
+
+			if (c == '\\') {
+				c = read();
+				switch (c) {
+				case 'n':
+					c = '\n';
+					break;
+				case 't':
+					c = '\t';
+					break;
+				case 'r':
+					c = '\r';
+					break;
+				case 'b':
+					c = '\b';
+					break;
+				case 'f':
+					c = '\f';
+					break;
+				case 'u':
+					c = 0;
+					for (int i = 0; i < 4; i++) {
+						int digit = Character.digit(read(), 16);
+						if (digit < 0)
+							throw error("invalid unicode escape");
+						c = c * 16 + digit;
+					}
+					break;
+				case '"':
+				case '\\':
+				case '/':
+					break;
+				default:
+					throw error("invalid escape sequence");
+				}
+			}
+
+			if (sb != null)
+				sb.append((char) c);
+		}
+	}
+
+	/**
+	 * Getter for the next character that is neither whitespace nor part of a
+	 * comment. The character is not consumed.
+	 *
+	 * @return the character or -1 should the data end.
+	 * @throws IOException should the data not be readable.
+	 */
+	private int peek() throws IOException {
+		while (true) {
+			int c = read();
+			if (c == '/') {
+				if (read() != '/')
+					throw error("expected '//'");
+				while ((c = read()) != '\n' && c != -1)
+					;
+			}
+
+			if (c == -1 || !Character.isWhitespace(c)) {
+				peeked = c;
+				return c;
+			}
+		}
+	}
+
+	/**
+	 * Consumes the next character.
+	 *
+	 * @return the character or -1 should the data end.
+	 * @throws IOException should the data not be readable.
+	 */
+	private int read() throws IOException {
+		int c;
+		if (peeked != NONE) {
+			c = peeked;
+			peeked = NONE;
+		} else {
+			c = in.read();
+		}
+
+		if (c == '\n')
+			line++;
+		return c;
+	}
+
+	/**
+	 * Creates an exception describing malformed data at the current line.
+	 *
+	 * @param message is the description of the problem.
+	 * @return the exception.
+	 */
+	private IOException error(String message) {
+		return new IOException("languages line " + line + ": " + message);
+	}
+}
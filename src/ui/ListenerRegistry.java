@@ -0,0 +1,167 @@
+package ui;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * This class stores the listeners of an event source. Listeners can be added
+ * and removed from any thread at any time, including from within a listener
+ * while an event is being dispatched: dispatching iterates over the listeners
+ * registered when it started and is not affected by concurrent changes.
+ * <p>
+ * The listeners are stored in an array that is replaced on every change, so
+ * dispatching neither locks nor copies. Listeners added with
+ * {@link #addWeak(Object)} are only weakly referenced and disappear once they
+ * are no longer used anywhere else, e.g. when a game session holding them ends
+ * without removing them.
+ *
+ * @param <L> is the type of the listeners.
+ * @author Niklas S.
+ *
+ */
+public final class ListenerRegistry<L> {
+
+	private static final Entry<?>[] EMPTY = new Entry<?>[0];
+
+	@SuppressWarnings("unchecked")
+	private final AtomicReference<Entry<L>[]> entries = new AtomicReference<>((Entry<L>[]) EMPTY);
+
+	/**
+	 * Adds a listener. A listener added multiple times will be called multiple
+	 * times.
+	 *
+	 * @param listener is the listener to be added. Should listener be null nothing
+	 *                 will happen.
+	 */
+	public void add(L listener) {
+		if (listener != null)
+			add(new Entry<>(listener, false));
+	}
+
+	/**
+	 * Adds a listener that is only weakly referenced. It will be removed
+	 * automatically once nothing else references it. Lambdas and method
+	 * references must therefore be stored by the caller, e.g. in a field, for as
+	 * long as they are to be called.
+	 *
+	 * @param listener is the listener to be added. Should listener be null nothing
+	 *                 will happen.
+	 */
+	public void addWeak(L listener) {
+		if (listener != null)
+			add(new Entry<>(listener, true));
+	}
+
+	/**
+	 * Removes a listener. Should it have been added multiple times only one of
+	 * them is removed.
+	 *
+	 * @param listener is the listener to be removed. Should listener be null or
+	 *                 not be registered nothing will happen.
+	 * @return true if the listener was removed.
+	 */
+	public boolean remove(L listener) {
+		if (listener == null)
+			return false;
+
+		while (true) {
+			Entry<L>[] current = entries.get();
+
+			int index = -1;
+			for (int i = 0; i < current.length && index < 0; i++)
+				if (listener.equals(current[i].get()))
+					index = i;
+			if (index < 0)
+				return false;
+
+			Entry<L>[] updated = Arrays.copyOf(current, current.length - 1);
+			System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+			if (entries.compareAndSet(current, updated))
+				return true;
+		}
+	}
+
+	/**
+	 * Calls an action for every registered listener in the order they were added.
+	 * Listeners added or removed while this method runs, e.g. by the action
+	 * itself, are not taken into account until the next call.
+	 *
+	 * @param action is called with every listener.
+	 */
+	public void forEach(Consumer<? super L> action) {
+		boolean collected = false;
+		for (Entry<L> entry : entries.get()) {
+			L listener = entry.get();
+			if (listener != null)
+				action.accept(listener);
+			else
+				collected = true;
+		}
+
+		if (collected)
+			removeCollected();
+	}
+
+	/**
+	 * Getter for whether any listeners are registered.
+	 *
+	 * @return true if no listeners are registered.
+	 */
+	public boolean isEmpty() {
+		for (Entry<L> entry : entries.get())
+			if (entry.get() != null)
+				return false;
+		return true;
+	}
+
+	/**
+	 * Appends an entry.
+	 *
+	 * @param entry is the entry to be appended.
+	 */
+	private void add(Entry<L> entry) {
+		while (true) {
+			Entry<L>[] current = entries.get();
+			Entry<L>[] updated = Arrays.copyOf(current, current.length + 1);
+			updated[current.length] = entry;
+			if (entries.compareAndSet(current, updated))
+				return;
+		}
+	}
+
+	/**
+	 * Removes the entries of weak listeners that were garbage collected.
+	 */
+	@SuppressWarnings("unchecked")
+	private void removeCollected() {
+		while (true) {
+			Entry<L>[] current = entries.get();
+			Entry<L>[] updated = Arrays.stream(current).filter(e -> e.get() != null).toArray(Entry[]::new);
+			if (updated.length == current.length || entries.compareAndSet(current, updated))
+				return;
+		}
+	}
+
+	/**
+	 * This class is a registered listener, referenced strongly or weakly.
+	 *
+	 * @author Niklas S.
+	 *
+	 */
+	private static final class Entry<L> {
+
+		private final L strong;
+		private final WeakReference<L> weak;
+
+		Entry(L listener, boolean weak) {
+			this.strong = weak ? null : listener;
+			this.weak = weak ? new WeakReference<>(listener) : null;
+		}
+
+		L get() {
+			return weak == null ? strong : weak.get();
+		}
+	}
+}
@@ -2,107 +2,188 @@ package ui;
 
 import java.awt.BasicStroke;
 import java.awt.Color;
+import java.awt.Font;
 import java.awt.Graphics2D;
-import java.awt.Point;
 import java.awt.Polygon;
 import java.awt.Rectangle;
 import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Scanner;
-
-import ui.Window.ViewSettings;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
- * This class reads, manages and draws mapdata. Loading happens in a static
- * block and is therefore the first thing that happens.
+ * This class reads, manages and draws mapdata. A Map is created from a
+ * classpath resource, a file or a stream and loads its data lazily the first
+ * time it is needed, or ahead of time in the background with
+ * {@link #loadAsync()}. Multiple maps can be used at the same time.
  * 
  * @author Niklas S.
  *
  */
 public class Map {
 
-	private static double mapWidth;
-	private static double mapHeight;
-	private static List<double[]> lines;
-	private static List<Country> countries;
-
-	private static int[][] adjacencyMatrix;
-
-	/*
-	 * loading in map data
+	/**
+	 * The classpath location of the bundled Risk world map.
 	 */
-	static {
-		try {
-			InputStream is = Map.class.getResourceAsStream("/ui/resources/riskmapdata.txt");
-			Scanner sc = new Scanner(is);
-			countries = new ArrayList<>();
-			lines = new ArrayList<>();
-
-			for (int i = 0; i < 2; i++) {
-				String[] split = sc.nextLine().split("=");
+	public static final String RISK_MAP = "/ui/resources/riskmapdata.txt";
+	/**
+	 * The classpath location of the bundled map of Europe.
+	 */
+	public static final String EUROPE_MAP = "/ui/resources/europemapdata.txt";
 
-				if (split[0].equalsIgnoreCase("width"))
-					mapWidth = Double.parseDouble(split[1]);
-				if (split[0].equalsIgnoreCase("height"))
-					mapHeight = Double.parseDouble(split[1]);
-			}
+	private final Callable<MapFile> source;
+	private volatile boolean loaded;
 
-			// line data
-			String linedataline = sc.nextLine().replace("lines", "");
-			String[] lines = linedataline.split(" M ");
-			for (String line : lines) {
-				if (line.isEmpty())
-					continue;
-				String[] segments = line.split(" L ");
+	private double mapWidth;
+	private double mapHeight;
+	private List<double[]> lines;
+	private List<Country> countries;
 
-				double[] da = new double[] { Double.parseDouble(segments[0].split(",")[0]),
-						Double.parseDouble(segments[0].split(",")[1]), Double.parseDouble(segments[1].split(",")[0]),
-						Double.parseDouble(segments[1].split(",")[1]) };
+	private CountryGraph graph;
 
-				Map.lines.add(da);
-			}
+	private SpatialIndex[] spatialIndices; // per level of detail
+	private final Object simplifierLock = new Object(); // guards creating the simplifier, never held with the map locked
+	private volatile Simplifier simplifier; // null until a simplified level is needed
 
-			int idCounter = 0;
-			while (sc.hasNextLine()) {
-				String[] split = sc.nextLine().split("=");
+	private final Object stateLock = new Object(); // guards the colors, labels and tooltips of the countries
+	private volatile int revision; // incremented whenever the drawn state of a country changes
+	private MapStyle style; // snapshot of the current state, null until needed
+	private final ListenerRegistry<Runnable> stateListeners = new ListenerRegistry<>();
 
-				if (split[0].startsWith("#"))
-					continue;
+	/**
+	 * Constructor creating a map that is loaded from the specified source once it
+	 * is first needed.
+	 * 
+	 * @param source is the source supplying the mapdata.
+	 */
+	private Map(Callable<MapFile> source) {
+		this.source = source;
+	}
 
-				countries.add(new Country(idCounter++, split[0], split[1]));
-			}
+	/**
+	 * Creates a map from mapdata stored as a classpath resource. Should a
+	 * precompiled binary version of the resource exist (same name with the
+	 * extension ".bin") it will be loaded instead.
+	 * 
+	 * @param resource is the classpath location of the mapdata, e.g.
+	 *                 {@link #RISK_MAP} or {@link #EUROPE_MAP}.
+	 * @return the map, which is loaded once it is first needed.
+	 */
+	public static Map fromResource(String resource) {
+		return new Map(() -> MapFile.load(resource));
+	}
 
-			sc.close();
+	/**
+	 * Creates a map from mapdata stored in a file. Files with the extension ".bin"
+	 * are read as precompiled binary mapdata, all others as text mapdata.
+	 * 
+	 * @param path is the path of the mapdata file.
+	 * @return the map, which is loaded once it is first needed.
+	 */
+	public static Map fromFile(Path path) {
+		return new Map(() -> MapFile.read(path));
+	}
 
-			// adjacency
-			double tolerance = 1;
-			adjacencyMatrix = new int[countries.size()][countries.size()];
-			for (int x = 0; x < adjacencyMatrix.length; x++)
-				for (int y = 0; y < adjacencyMatrix[0].length; y++)
-					adjacencyMatrix[x][y] = 0;
+	/**
+	 * Creates a map from mapdata read from a stream. Both the text and the binary
+	 * format are recognized.
+	 * 
+	 * @param is is the stream containing the mapdata. It will be read and closed
+	 *           once the map is loaded.
+	 * @return the map, which is loaded once it is first needed.
+	 */
+	public static Map fromStream(InputStream is) {
+		return new Map(() -> MapFile.read(is));
+	}
 
-			for (int from = 0; from < adjacencyMatrix.length; from++)
-				COUNTRY: for (int to = 0; to < from; to++) {
+	/**
+	 * Getter for the default map, the bundled Risk world map. It is shared by all
+	 * callers and is used by {@link Window#Window()}.
+	 * 
+	 * @return the default map.
+	 */
+	public static Map getDefault() {
+		return DefaultMap.MAP;
+	}
 
-					List<double[]> fromVertices = countries.get(from).dumpVertices();
-					List<double[]> toVertices = countries.get(to).dumpVertices();
+	/**
+	 * Holder for the default map so it is only created when it is requested.
+	 */
+	private static class DefaultMap {
+		private static final Map MAP = fromResource(RISK_MAP);
+	}
 
-					for (double[] v1 : fromVertices)
-						for (double[] v2 : toVertices)
-							if (Math.abs(v1[0] - v2[0]) < tolerance && Math.abs(v1[1] - v2[1]) < tolerance) {
-								countries.get(from).addNeighbour(countries.get(to));
-								continue COUNTRY;
-							}
+	/**
+	 * This method starts loading the mapdata in the background should it not have
+	 * been loaded yet. Useful for loading maps while the rest of the application
+	 * is starting.
+	 * 
+	 * @return a future that completes with this map once it is loaded.
+	 */
+	public CompletableFuture<Map> loadAsync() {
+		if (loaded)
+			return CompletableFuture.completedFuture(this);
+
+		return CompletableFuture.supplyAsync(() -> {
+			ensureLoaded();
+			return this;
+		});
+	}
 
-				}
+	/**
+	 * Loads the mapdata should that not have happened yet. Should loading fail the
+	 * map will be empty and have a width and height of -1.
+	 */
+	private void ensureLoaded() {
+		if (loaded)
+			return;
+
+		synchronized (this) {
+			if (loaded)
+				return;
+
+			try {
+				MapFile data = source.call();
+				mapWidth = data.width;
+				mapHeight = data.height;
+				lines = data.lines;
+				countries = data.countries;
+
+				for (Country c : countries)
+					c.map = this;
+
+				// adjacency
+				graph = new CountryGraph(countries.size());
+				for (int[] border : data.borders)
+					graph.addEdge(border[0], border[1]);
+
+				spatialIndices = new SpatialIndex[Simplifier.TOLERANCES.length];
+				spatialIndices[0] = new SpatialIndex(countries, mapWidth, mapHeight, 0);
+
+			} catch (Exception e) {
+				lines = new ArrayList<>();
+				countries = new ArrayList<>();
+				graph = new CountryGraph(0);
+				spatialIndices = new SpatialIndex[Simplifier.TOLERANCES.length];
+				spatialIndices[0] = new SpatialIndex(countries, 0, 0, 0);
+				mapWidth = -1;
+				mapHeight = -1;
+				e.printStackTrace();
+			}
 
-		} catch (Exception e) {
-			countries = null;
-			mapWidth = -1;
-			mapHeight = -1;
-			e.printStackTrace();
+			loaded = true;
 		}
 	}
 
@@ -111,7 +192,8 @@ public class Map {
 	 * 
 	 * @return the width of the map.
 	 */
-	static double getWidth() {
+	public double getWidth() {
+		ensureLoaded();
 		return mapWidth;
 	}
 
@@ -120,16 +202,147 @@ public class Map {
 	 * 
 	 * @return the height of the map.
 	 */
-	static double getHeight() {
+	public double getHeight() {
+		ensureLoaded();
 		return mapHeight;
 	}
 
+	/**
+	 * Getter for the spatial index over the shapes of all countries at a level of
+	 * detail. Indices of simplified levels are built the first time they are
+	 * needed.
+	 * 
+	 * @param level is the level of detail.
+	 * @return the spatial index.
+	 */
+	private synchronized SpatialIndex spatialIndex(int level) {
+		if (spatialIndices[level] == null)
+			spatialIndices[level] = new SpatialIndex(countries, mapWidth, mapHeight, level);
+		return spatialIndices[level];
+	}
+
+	/**
+	 * Getter for the simplifier of the countries of this map. It is created the
+	 * first time a simplified level of detail is needed, so maps that are only
+	 * drawn at full detail never pay for it. Creating it locks neither the map nor
+	 * its countries.
+	 * 
+	 * @return the simplifier.
+	 */
+	Simplifier getSimplifier() {
+		ensureLoaded();
+		Simplifier s = simplifier;
+		if (s != null)
+			return s;
+
+		synchronized (simplifierLock) {
+			if (simplifier == null)
+				simplifier = new Simplifier(countries);
+			return simplifier;
+		}
+	}
+
+	/**
+	 * Getter for the revision of the drawn state of the map. The revision changes
+	 * whenever the color or label of a country changes, so a cached rendering of
+	 * the map is up to date as long as the revision is the same.
+	 * 
+	 * @return the current revision.
+	 */
+	int getRevision() {
+		return revision;
+	}
+
+	/**
+	 * Getter for a snapshot of the current colors and labels of all countries.
+	 * The snapshot never contains only part of a {@link MapUpdate}, so it can be
+	 * rendered while other threads change the countries.
+	 * 
+	 * @return the snapshot. It is shared until the next change.
+	 */
+	public MapStyle getStyle() {
+		ensureLoaded();
+		synchronized (stateLock) {
+			if (style == null)
+				style = MapStyle.capture(this);
+			return style;
+		}
+	}
+
+	/**
+	 * Creates an empty batch of changes to the countries of this map. The changes
+	 * take effect together once the batch is applied.
+	 * 
+	 * @return the batch.
+	 * @see #update(Consumer)
+	 */
+	public MapUpdate newUpdate() {
+		ensureLoaded();
+		return new MapUpdate(this);
+	}
+
+	/**
+	 * Changes any number of countries at once, e.g.
+	 * <p>
+	 * {@code map.update(u -> u.setColor(alaska, Color.RED).setLabel(alaska, "3"));}
+	 * <p>
+	 * This method can be called from any thread. No snapshot and no frame drawn by
+	 * a Window will contain only some of the changes, and a Window is repainted
+	 * once for the whole batch.
+	 * 
+	 * @param changes records the changes in the batch it is given.
+	 */
+	public void update(Consumer<MapUpdate> changes) {
+		MapUpdate update = newUpdate();
+		changes.accept(update);
+		update.apply();
+	}
+
+	/**
+	 * Changes the state of countries atomically and notifies the state listeners.
+	 * 
+	 * @param write writes the new state to the countries and returns whether the
+	 *              drawn state, i.e. a color or label, changed.
+	 */
+	void update(BooleanSupplier write) {
+		synchronized (stateLock) {
+			if (write.getAsBoolean()) {
+				revision++;
+				style = null;
+			}
+		}
+
+		stateListeners.forEach(Runnable::run);
+	}
+
+	/**
+	 * Adds a listener that is notified after the state of countries changed. It
+	 * is called by the thread that changed them. The listener is only weakly
+	 * referenced so Windows that are no longer used do not stay in memory as long
+	 * as their map does.
+	 * 
+	 * @param listener is the listener to be added.
+	 */
+	void addStateListener(Runnable listener) {
+		stateListeners.addWeak(listener);
+	}
+
+	/**
+	 * Removes a listener added with {@link #addStateListener(Runnable)}.
+	 * 
+	 * @param listener is the listener to be removed.
+	 */
+	void removeStateListener(Runnable listener) {
+		stateListeners.remove(listener);
+	}
+
 	/**
 	 * Getter for the list of countries.
 	 * 
 	 * @return a list of all Countries listed in the mapdata.
 	 */
-	public static List<Country> getCountries() {
+	public List<Country> getCountries() {
+		ensureLoaded();
 		return countries;
 	}
 
@@ -140,7 +353,8 @@ public class Map {
 	 * @return the country that has the same String id as the argumend id. Should no
 	 *         such country exist in the map data null will be returned.
 	 */
-	public static Country getCountry(String id) {
+	public Country getCountry(String id) {
+		ensureLoaded();
 		for (Country c : countries)
 			if (c.id.equalsIgnoreCase(id))
 				return c;
@@ -148,6 +362,184 @@ public class Map {
 		return null;
 	}
 
+	/**
+	 * Checks whether a country can be reached from another country by only
+	 * crossing borders into countries that satisfy the filter, e.g. whether troops
+	 * can be moved between two countries through countries of their owner.
+	 * 
+	 * @param from   is the country to start from.
+	 * @param to     is the country to reach.
+	 * @param filter decides which countries may be crossed. Both from and to have
+	 *               to satisfy it as well. Should filter be null all countries may
+	 *               be crossed.
+	 * @return true if there is such a path. Should from or to be null or not
+	 *         belong to this map false will be returned.
+	 */
+	public boolean isReachable(Country from, Country to, Predicate<Country> filter) {
+		return getShortestPath(from, to, filter) != null;
+	}
+
+	/**
+	 * Compiles a list of all countries that can be reached from a country by only
+	 * crossing borders into countries that satisfy the filter.
+	 * 
+	 * @param from   is the country to start from.
+	 * @param filter decides which countries may be crossed. Should filter be null
+	 *               all countries may be crossed.
+	 * @return all reachable countries including from, ordered by their distance to
+	 *         from. Should from be null, not belong to this map or not satisfy the
+	 *         filter an empty list will be returned.
+	 */
+	public List<Country> getReachableCountries(Country from, Predicate<Country> filter) {
+		List<Country> reachable = new ArrayList<>();
+		if (!contains(from))
+			return reachable;
+
+		boolean[] allowed = mask(filter);
+		if (allowed != null && !allowed[from.numId])
+			return reachable;
+
+		int[] dist = new int[countries.size()];
+		int[] order = new int[countries.size()];
+		int count = graph.bfs(from.numId, allowed, dist, null, order);
+
+		// the search visits countries in the order of their distance
+		for (int i = 0; i < count; i++)
+			reachable.add(countries.get(order[i]));
+
+		return reachable;
+	}
+
+	/**
+	 * Finds a path with the fewest border crossings between two countries that
+	 * only crosses into countries satisfying the filter.
+	 * 
+	 * @param from   is the country to start from.
+	 * @param to     is the country to reach.
+	 * @param filter decides which countries may be crossed. Both from and to have
+	 *               to satisfy it as well. Should filter be null all countries may
+	 *               be crossed.
+	 * @return the countries on the path starting with from and ending with to.
+	 *         Should there be no such path or should from or to be null or not
+	 *         belong to this map null will be returned.
+	 */
+	public List<Country> getShortestPath(Country from, Country to, Predicate<Country> filter) {
+		if (!contains(from) || !contains(to))
+			return null;
+
+		boolean[] allowed = mask(filter);
+		if (allowed != null && (!allowed[from.numId] || !allowed[to.numId]))
+			return null;
+
+		int[] dist = new int[countries.size()];
+		int[] parent = new int[countries.size()];
+		graph.bfs(from.numId, allowed, dist, parent, null);
+
+		if (dist[to.numId] == -1)
+			return null;
+
+		Country[] path = new Country[dist[to.numId] + 1];
+		for (int i = to.numId, step = path.length - 1; i != -1; i = parent[i], step--)
+			path[step] = countries.get(i);
+
+		return Arrays.asList(path);
+	}
+
+	/**
+	 * Getter for the smallest number of borders that have to be crossed to get
+	 * from one country to another. The distances between all countries are
+	 * computed once and reused until neighbours are added.
+	 * 
+	 * @param from is the country to start from.
+	 * @param to   is the country to reach.
+	 * @return the number of borders to cross, 0 if from and to are the same
+	 *         country. Should to not be reachable or should from or to be null or
+	 *         not belong to this map -1 will be returned.
+	 */
+	public int getDistance(Country from, Country to) {
+		if (!contains(from) || !contains(to))
+			return -1;
+
+		return graph.distance(from.numId, to.numId);
+	}
+
+	/**
+	 * Groups all countries satisfying the filter into connected components, e.g.
+	 * the separate regions a player owns.
+	 * 
+	 * @param filter decides which countries are part of the components. Should
+	 *               filter be null all countries will be grouped.
+	 * @return the components, each a list of countries ordered as in the mapdata.
+	 *         The components are ordered by their first country.
+	 */
+	public List<List<Country>> getComponents(Predicate<Country> filter) {
+		ensureLoaded();
+
+		int[] labels = new int[countries.size()];
+		int count = graph.components(mask(filter), labels);
+
+		List<List<Country>> components = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+			components.add(new ArrayList<>());
+		for (int i = 0; i < labels.length; i++)
+			if (labels[i] != -1)
+				components.get(labels[i]).add(countries.get(i));
+
+		return components;
+	}
+
+	/**
+	 * Compiles a list of all countries satisfying the filter that border at least
+	 * one country that does not, e.g. the countries of a player that can be
+	 * attacked.
+	 * 
+	 * @param filter decides which countries form the region. Should filter be null
+	 *               an empty list will be returned.
+	 * @return the border countries of the region ordered as in the mapdata.
+	 */
+	public List<Country> getBorderCountries(Predicate<Country> filter) {
+		List<Country> border = new ArrayList<>();
+		if (filter == null)
+			return border;
+
+		ensureLoaded();
+		boolean[] allowed = mask(filter);
+		for (int i = 0; i < allowed.length; i++)
+			if (allowed[i] && graph.isBorder(i, allowed))
+				border.add(countries.get(i));
+
+		return border;
+	}
+
+	/**
+	 * Checks whether a country belongs to this map.
+	 * 
+	 * @param c is the country to check.
+	 * @return true if c is not null and one of the countries of this map.
+	 */
+	private boolean contains(Country c) {
+		ensureLoaded();
+		return c != null && c.map == this;
+	}
+
+	/**
+	 * Evaluates a filter for all countries once so graph queries can work on a
+	 * primitive mask.
+	 * 
+	 * @param filter is the filter to evaluate.
+	 * @return the mask indexed by numId, null should filter be null.
+	 */
+	private boolean[] mask(Predicate<Country> filter) {
+		if (filter == null)
+			return null;
+
+		boolean[] mask = new boolean[countries.size()];
+		for (int i = 0; i < mask.length; i++)
+			mask[i] = filter.test(countries.get(i));
+
+		return mask;
+	}
+
 	/**
 	 * This is a method for drawing the countries in the mapdata with Graphics g and
 	 * transformed to comply with the ViewSettings.
@@ -155,67 +547,151 @@ public class Map {
 	 * @param g    is the Grahpics2D object with which the countries will be drawn.
 	 * @param view is the ViewSettings that will be used to transform the country
 	 *             data to fit with the settings.
+	 * @see #drawCountries(Graphics2D, ViewSettings, MapStyle)
 	 */
-	public static void drawCountries(Graphics2D g, ViewSettings view) {
+	public void drawCountries(Graphics2D g, ViewSettings view) {
+		drawCountries(g, view, null);
+	}
 
-		g.setStroke(new BasicStroke(1.5f));
+	/**
+	 * This is a method for drawing the countries in the mapdata with Graphics g,
+	 * transformed to comply with the ViewSettings and styled according to a
+	 * snapshot. Only countries and sea lines that are at least partially visible
+	 * in the viewport of the view are projected and drawn.
+	 * 
+	 * @param g     is the Grahpics2D object with which the countries will be drawn.
+	 * @param view  is the ViewSettings that will be used to transform the country
+	 *              data to fit with the settings.
+	 * @param style is the snapshot of the colors and labels of the countries.
+	 *              Should style be null the current colors and labels of the
+	 *              countries will be used.
+	 */
+	public void drawCountries(Graphics2D g, ViewSettings view, MapStyle style) {
+		drawCountries(g, view, style, RenderMode.PROJECTED);
+	}
 
-		List<String[]> text = new ArrayList<>();
+	/**
+	 * This is a method for drawing the countries in the mapdata with Graphics g,
+	 * transformed to comply with the ViewSettings and styled according to a
+	 * snapshot. Only countries and sea lines that are at least partially visible
+	 * in the viewport of the view are drawn.
+	 * 
+	 * @param g     is the Grahpics2D object with which the countries will be drawn.
+	 * @param view  is the ViewSettings that will be used to transform the country
+	 *              data to fit with the settings.
+	 * @param style is the snapshot of the colors and labels of the countries.
+	 *              Should style be null the {@link #getStyle() current} colors
+	 *              and labels of the countries will be used.
+	 * @param mode  is the way the countries are drawn.
+	 */
+	public void drawCountries(Graphics2D g, ViewSettings view, MapStyle style, RenderMode mode) {
+		ensureLoaded();
+		if (style == null)
+			style = getStyle();
+
+		boolean transformed = mode == RenderMode.TRANSFORMED;
+		int level = Simplifier.level(view.getZoom());
+		AffineTransform screenTransform = g.getTransform();
+		AffineTransform mapTransform = null;
+		BasicStroke mapOutlineStroke = null;
+		if (transformed) {
+			mapTransform = new AffineTransform(screenTransform);
+			mapTransform.concatenate(view.getTransform());
+			mapOutlineStroke = RenderResources.createOutlineStroke(view.getZoom());
+		}
+
+		g.setStroke(RenderResources.OUTLINE_STROKE);
+
+		// visible area in mapspace, grown by a few pixels for the outlines
+		double margin = 2 * view.getZoom();
+		double minX = view.toMapX(0) - margin;
+		double minY = view.toMapY(0) - margin;
+		double maxX = view.toMapX(view.getViewportWidth()) + margin;
+		double maxY = view.toMapY(view.getViewportHeight()) + margin;
+
+		List<PlacedLabel> labels = new ArrayList<>();
 		for (Country c : countries) {
-			Polygon joinedShape = new Polygon();
+			Color color = style.getColor(c);
+			String label = style.getLabel(c);
+			LabelLayout layout = c.getLabelLayout(label, g.getFont(), g.getFontRenderContext());
+
+			double[] b = c.getBounds();
+			if (b[2] < minX || b[0] > maxX || b[3] < minY || b[1] > maxY) {
+				if (layout == null)
+					continue;
+
+				// the label is centered on the country and may be wider than it
+				double centerX = (b[0] + b[2]) / 2;
+				double centerY = (b[1] + b[3]) / 2;
+				if (centerX + layout.getWidth() / 2 * view.getZoom() + margin < minX
+						|| centerX - layout.getWidth() / 2 * view.getZoom() - margin > maxX
+						|| centerY + layout.getBelow() * view.getZoom() + margin < minY
+						|| centerY - layout.getAbove() * view.getZoom() - margin > maxY)
+					continue;
+			}
+
+			if (transformed) {
+				g.setTransform(mapTransform);
+				g.setStroke(mapOutlineStroke);
+				Path2D path = c.getPath(level);
+				g.setColor(color);
+				g.fill(path);
+				g.setColor(Color.WHITE);
+				g.draw(path);
+				g.setTransform(screenTransform);
+
+				// labels are drawn after all countries so no country covers them
+				if (layout != null && b[0] <= b[2])
+					labels.add(new PlacedLabel(layout, view.toScreenX((b[0] + b[2]) / 2), view.toScreenY((b[1] + b[3]) / 2),
+							drawBlack(color)));
+				continue;
+			}
+
+			int shapesMinX = Integer.MAX_VALUE, shapesMinY = Integer.MAX_VALUE;
+			int shapesMaxX = Integer.MIN_VALUE, shapesMaxY = Integer.MIN_VALUE;
 			for (Shape s : c.generateShapes(view)) {
-				g.setColor(c.getColor());
+				g.setColor(color);
 				g.fill(s);
 				g.setColor(Color.WHITE);
 				g.draw(s);
 
 				Rectangle boundingBox = s.getBounds();
-				joinedShape.addPoint(boundingBox.x, boundingBox.y);
-				joinedShape.addPoint(boundingBox.x + boundingBox.width, boundingBox.y + boundingBox.height);
+				shapesMinX = Math.min(shapesMinX, boundingBox.x);
+				shapesMinY = Math.min(shapesMinY, boundingBox.y);
+				shapesMaxX = Math.max(shapesMaxX, boundingBox.x + boundingBox.width);
+				shapesMaxY = Math.max(shapesMaxY, boundingBox.y + boundingBox.height);
 			}
 
-			// entering country's label into toDraw list
-			if (c.getLabel() != null && !c.getLabel().isEmpty()) {
-				String[] lines = c.getLabel().split("\n");
-
-				float labelX = (float) joinedShape.getBounds().getCenterX();
-				float labelYBaseLine = (float) joinedShape.getBounds().getCenterY()
-						+ 1.8f * g.getFont().getSize() * lines.length / 2;
-
-				for (int i = 0; i < lines.length; i++) {
-
-					int stringWidth = g.getFontMetrics().stringWidth(lines[i]);
-
-					text.add(new String[] { lines[i], "" + (labelX - stringWidth / 2),
-							"" + (labelYBaseLine - (1.8f * g.getFont().getSize() * (lines.length - i)) / 2),
-							"" + drawBlack(c.getColor()) });
-
-				}
-			}
+			// labels are drawn after all countries so no country covers them
+			if (layout != null && shapesMinX <= shapesMaxX)
+				labels.add(new PlacedLabel(layout, (shapesMinX + shapesMaxX) / 2f, (shapesMinY + shapesMaxY) / 2f,
+						drawBlack(color)));
 		}
 
 		// drawing country's label
-		for (String[] lineToDraw : text) {
-			if (Boolean.parseBoolean(lineToDraw[3]))
+		for (PlacedLabel label : labels) {
+			if (label.black)
 				g.setColor(Color.BLACK);
 			else
 				g.setColor(Color.LIGHT_GRAY);
 
-			g.drawString(lineToDraw[0], Float.parseFloat(lineToDraw[1]), Float.parseFloat(lineToDraw[2]));
+			label.layout.draw(g, label.x, label.y);
 		}
 
+		g.setTransform(screenTransform);
 		g.setColor(Color.BLACK);
-		g.setStroke(
-				new BasicStroke(1.0f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[] { 10f }, 0.0f));
+		g.setStroke(RenderResources.SEA_LINE_STROKE);
 
 		for (double[] line : lines) {
-			int[] from = view.convertToScreenSpace(line[0], line[1]);
-			int[] to = view.convertToScreenSpace(line[2], line[3]);
+			if (Math.max(line[0], line[2]) < minX || Math.min(line[0], line[2]) > maxX
+					|| Math.max(line[1], line[3]) < minY || Math.min(line[1], line[3]) > maxY)
+				continue;
 
-			g.drawLine(from[0], from[1], to[0], to[1]);
+			g.drawLine(view.toScreenX(line[0]), view.toScreenY(line[1]), view.toScreenX(line[2]),
+					view.toScreenY(line[3]));
 		}
 
-		g.setStroke(new BasicStroke(1.5f));
+		g.setStroke(RenderResources.OUTLINE_STROKE);
 	}
 
 	/**
@@ -247,7 +723,10 @@ public class Map {
 
 	/**
 	 * This method traces which country a specified screenspace coordinates falls
-	 * onto based on the specified viewSettings.
+	 * onto based on the specified viewSettings. The coordinates are converted to
+	 * mapspace and looked up in a spatial index so only countries near the
+	 * coordinates are tested. The countries are tested with the same level of
+	 * detail they are drawn with at the zoom of the view.
 	 * 
 	 * @param x    the x coordinate
 	 * @param y    the y coordinate
@@ -258,15 +737,9 @@ public class Map {
 	 *         multiple countries contain the coordinates only the first country
 	 *         listed in the mapdata will be returned.
 	 */
-	public static Country traceCountry(int x, int y, ViewSettings view) {
-		view = view.copy();
-
-		for (Country c : countries)
-			for (Shape s : c.generateShapes(view))
-				if (s.contains(new Point(x, y)))
-					return c;
-
-		return null;
+	public Country traceCountry(int x, int y, ViewSettings view) {
+		ensureLoaded();
+		return spatialIndex(Simplifier.level(view.getZoom())).lookup(view.toMapX(x), view.toMapY(y));
 	}
 
 	/**
@@ -277,16 +750,34 @@ public class Map {
 	 */
 	public static class Country {
 
+		/**
+		 * The number of label layouts kept per country.
+		 */
+		static final int LABEL_LAYOUTS = 4;
+		private static final LabelLayout[] NO_LABEL_LAYOUTS = new LabelLayout[0];
+
 		private final int numId;
 		private String id;
-		private List<List<double[]>> shapes;
-		private Color c;
-		private Color hoverColor;
-		private String tooltipText;
-		private String label;
+		private Map map;
+		private double[] coordinates;
+		private int[] ringOffsets;
+		private double[] shapeBounds;
+		private double[] bounds;
+		private PathParser.Shapes[] levels; // simplified shapes per level of detail
+		private Path2D[] paths; // mapspace paths per level of detail
+		// written while holding the state lock of the map, read without it
+		private volatile Color c;
+		private volatile Color hoverColor;
+		private volatile String tooltipText;
+		private volatile String label;
+		private volatile LabelLayout[] labelLayouts = NO_LABEL_LAYOUTS; // most recently used first, replaced on change
+
+		private ProjectionCache projectionCache;
 
 		/**
-		 * Constructor for creating a Country object.
+		 * Constructor for creating a Country object. The country does not belong to
+		 * a map, so it has no neighbours and cannot be given any; only countries
+		 * loaded as part of a map are connected to their neighbours.
 		 * 
 		 * @param numId            is a unique identification number for each number.
 		 * @param id               is the string id that is specified in the mapdata
@@ -296,90 +787,193 @@ public class Map {
 		 *                         instructions of different shapes.
 		 */
 		public Country(int numId, String id, String drawInstructions) {
+			this(numId, id, PathParser.parse(drawInstructions), null);
+		}
+
+		/**
+		 * Constructor for creating a Country object from already parsed shapes, e.g.
+		 * when reading precompiled mapdata.
+		 * 
+		 * @param numId       is a unique identification number for each number.
+		 * @param id          is the string id that is specified in the mapdata file
+		 *                    and is the main way countries are identified.
+		 * @param shapes      are the packed coordinates of the country in mapspace.
+		 * @param shapeBounds are the bounding boxes of the shapes stored as minX,
+		 *                    minY, maxX, maxY for each shape. Should shapeBounds be
+		 *                    null they will be computed.
+		 */
+		Country(int numId, String id, PathParser.Shapes shapes, double[] shapeBounds) {
 			this.numId = numId;
 			this.id = id;
 			this.tooltipText = id;
 			this.c = new Color(205, 205, 205);
 			label = "";
 
-			shapes = new ArrayList<>();
+			projectionCache = new ProjectionCache();
+			coordinates = shapes.coordinates;
+			ringOffsets = shapes.ringOffsets;
 
-			boolean absoluteInstructions = drawInstructions.contains("L");
+			if (shapeBounds == null)
+				shapeBounds = shapes.bounds();
+			this.shapeBounds = shapeBounds;
 
-			String[] inst = drawInstructions.split(" ");
+			bounds = new double[] { Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE };
+			for (int s = 0; s < getShapeCount(); s++) {
+				bounds[0] = Math.min(bounds[0], shapeBounds[s * 4]);
+				bounds[1] = Math.min(bounds[1], shapeBounds[s * 4 + 1]);
+				bounds[2] = Math.max(bounds[2], shapeBounds[s * 4 + 2]);
+				bounds[3] = Math.max(bounds[3], shapeBounds[s * 4 + 3]);
+			}
+		}
 
-			List<double[]> currentShape = new ArrayList<>();
-			double penx = 0;
-			double peny = 0;
-			for (int i = 0; i < inst.length; i++) {
+		/**
+		 * Getter for the String id.
+		 * 
+		 * @return the string id.
+		 */
+		public String getId() {
+			return id;
+		}
 
-				if (inst[i].equalsIgnoreCase("m")) {
-					if (currentShape.size() != 0) {
-						shapes.add(currentShape);
-						currentShape = new ArrayList<>();
-					}
-					i++;
+		/**
+		 * Compiles a list of all vertices of all shapes.
+		 * 
+		 * @return a list of all vertices regardless of which shape they are apart of.
+		 */
+		public List<double[]> dumpVertices() {
+			List<double[]> vertices = new ArrayList<>(coordinates.length / 2);
 
-					String[] move = inst[i].split(",");
+			for (int i = 0; i < coordinates.length; i += 2)
+				vertices.add(new double[] { coordinates[i], coordinates[i + 1] });
 
-					if (absoluteInstructions) {
-						penx = Double.parseDouble(move[0]);
-						peny = Double.parseDouble(move[1]);
-					} else {
-						penx += Double.parseDouble(move[0]);
-						peny += Double.parseDouble(move[1]);
-					}
+			return vertices;
+		}
 
-					continue;
-				}
+		/**
+		 * Getter for the numeric id, the index of the country in the mapdata.
+		 * 
+		 * @return the numeric id.
+		 */
+		int getNumId() {
+			return numId;
+		}
 
-				if (inst[i].equalsIgnoreCase("z")) {
-					currentShape.add(new double[] { penx, peny });
-				}
+		/**
+		 * Getter for the coordinates of all vertices of all shapes in mapspace,
+		 * stored as x, y pairs one shape after the other.
+		 * 
+		 * @return the packed coordinates. The array is shared and must not be
+		 *         modified.
+		 */
+		double[] getCoordinates() {
+			return coordinates;
+		}
 
-				if (inst[i].equalsIgnoreCase("l")) {
-					continue;
-				}
+		/**
+		 * Getter for the offsets of the shapes in {@link #getCoordinates()}. Shape s
+		 * spans from index ringOffsets[s] (inclusive) to ringOffsets[s + 1]
+		 * (exclusive).
+		 * 
+		 * @return the offsets, one more than there are shapes. The array is shared
+		 *         and must not be modified.
+		 */
+		int[] getRingOffsets() {
+			return ringOffsets;
+		}
 
-				if (inst[i].matches("[-\\d.]+,[-\\d.]+")) {
+		/**
+		 * Getter for the number of shapes ("islands") of the country.
+		 * 
+		 * @return the number of shapes.
+		 */
+		int getShapeCount() {
+			return ringOffsets.length - 1;
+		}
 
-					currentShape.add(new double[] { penx, peny });
+		/**
+		 * Getter for the bounding boxes of the shapes in mapspace.
+		 * 
+		 * @return the bounding boxes stored as minX, minY, maxX, maxY for each shape.
+		 */
+		double[] getShapeBounds() {
+			return shapeBounds;
+		}
 
-					String[] move = inst[i].split(",");
-					if (absoluteInstructions) {
-						penx = Double.parseDouble(move[0]);
-						peny = Double.parseDouble(move[1]);
+		/**
+		 * Getter for the shapes of the country at a level of detail. Simplified levels
+		 * are computed the first time they are needed.
+		 * 
+		 * @param level is the level of detail, 0 for the original shapes.
+		 * @return the shapes. They are shared and must not be modified. Should the
+		 *         country not belong to a map the original shapes will be returned.
+		 */
+		PathParser.Shapes getShapes(int level) {
+			if (map == null)
+				level = 0;
+
+			// resolved before locking this country: the map must never be locked while a
+			// country is, the map locks countries while building its spatial indices
+			Simplifier simplifier = level == 0 ? null : map.getSimplifier();
+
+			synchronized (this) {
+				if (levels == null)
+					levels = new PathParser.Shapes[Simplifier.TOLERANCES.length];
+
+				if (levels[level] == null) {
+					if (level == 0) {
+						levels[0] = new PathParser.Shapes();
+						levels[0].coordinates = coordinates;
+						levels[0].ringOffsets = ringOffsets;
 					} else {
-						penx += Double.parseDouble(move[0]);
-						peny += Double.parseDouble(move[1]);
+						levels[level] = simplifier.simplify(this, level);
 					}
-
 				}
+				return levels[level];
 			}
-			shapes.add(currentShape);
 		}
 
 		/**
-		 * Getter for the String id.
+		 * Getter for all shapes of the country at a level of detail joined into one
+		 * path in mapspace. The path is built the first time it is needed.
 		 * 
-		 * @return the string id.
+		 * @param level is the level of detail, 0 for the original shapes.
+		 * @return the path. It is shared and must not be modified.
 		 */
-		public String getId() {
-			return id;
+		Path2D getPath(int level) {
+			PathParser.Shapes shapes = getShapes(level); // outside the lock, see getShapes
+
+			synchronized (this) {
+				if (paths == null)
+					paths = new Path2D[Simplifier.TOLERANCES.length];
+				if (paths[level] != null)
+					return paths[level];
+
+				Path2D.Float path = new Path2D.Float(Path2D.WIND_EVEN_ODD, shapes.coordinates.length / 2 + 1);
+				for (int s = 0; s < shapes.ringCount(); s++) {
+					int start = shapes.ringOffsets[s];
+					int end = shapes.ringOffsets[s + 1];
+					if (end - start < 6)
+						continue; // less than three vertices
+
+					path.moveTo(shapes.coordinates[start], shapes.coordinates[start + 1]);
+					for (int i = start + 2; i < end; i += 2)
+						path.lineTo(shapes.coordinates[i], shapes.coordinates[i + 1]);
+					path.closePath();
+				}
+				paths[level] = path;
+				return path;
+			}
 		}
 
 		/**
-		 * Compiles a list of all vertices of all shapes.
+		 * Getter for the bounding box of all shapes of the country in mapspace.
 		 * 
-		 * @return a list of all vertices regardless of which shape they are apart of.
+		 * @return the bounding box stored as minX, minY, maxX, maxY. Should the
+		 *         country have no shapes minX and minY will be larger than maxX and
+		 *         maxY.
 		 */
-		public List<double[]> dumpVertices() {
-			List<double[]> vertices = new ArrayList<>();
-
-			for (List<double[]> shapes : this.shapes)
-				vertices.addAll(shapes);
-
-			return vertices;
+		double[] getBounds() {
+			return bounds;
 		}
 
 		/**
@@ -389,16 +983,18 @@ public class Map {
 		 * @return a list of shapes of all "islands" of the country that would be drawn.
 		 */
 		public List<Shape> generateShapes() {
-			List<Shape> shapes = new ArrayList<>();
+			List<Shape> shapes = new ArrayList<>(getShapeCount());
 
-			for (List<double[]> shape : this.shapes) {
-				Polygon p = new Polygon();
+			for (int s = 0; s < getShapeCount(); s++) {
+				int n = (ringOffsets[s + 1] - ringOffsets[s]) / 2;
+				int[] xs = new int[n];
+				int[] ys = new int[n];
 
-				for (double[] d : shape) {
-					int[] screenSpaceCoords = new int[] { (int) d[0], (int) d[1] };
-					p.addPoint(screenSpaceCoords[0], screenSpaceCoords[1]);
+				for (int i = 0, j = ringOffsets[s]; i < n; i++, j += 2) {
+					xs[i] = (int) coordinates[j];
+					ys[i] = (int) coordinates[j + 1];
 				}
-				shapes.add(p);
+				shapes.add(new Polygon(xs, ys, n));
 			}
 			return shapes;
 		}
@@ -406,22 +1002,43 @@ public class Map {
 		/**
 		 * Compiles all vertex groups into shapes in screenspace based on the given
 		 * viewsettings. Useful for calculating point shape intersection.
+		 * <p>
+		 * The projected shapes are cached for the most recently used viewports so
+		 * repeated frames and the wrap-around copies of the map reuse the same
+		 * shapes. The returned shapes are shared and must not be modified.
+		 * <p>
+		 * The shapes are simplified to the level of detail matching the zoom of the
+		 * view.
 		 * 
 		 * @param view is the ViewSettings objects used to calculate the screenspace
 		 *             coordinates.
 		 * @return a list of shapes of all "islands" of the country that would be drawn.
 		 */
 		public List<Shape> generateShapes(ViewSettings view) {
-			List<Shape> shapes = new ArrayList<>();
+			List<Shape> cached;
+			synchronized (projectionCache) {
+				cached = projectionCache.get(view);
+			}
+			if (cached != null)
+				return cached;
 
-			for (List<double[]> shape : this.shapes) {
-				Polygon p = new Polygon();
+			// vertices closer together than half a pixel are dropped
+			PathParser.Shapes lod = getShapes(Simplifier.level(view.getZoom()));
 
-				for (double[] d : shape) {
-					int[] screenSpaceCoords = view.convertToScreenSpace(d[0], d[1]);
-					p.addPoint(screenSpaceCoords[0], screenSpaceCoords[1]);
-				}
-				shapes.add(p);
+			List<Shape> shapes = new ArrayList<>(getShapeCount());
+
+			for (int s = 0; s < getShapeCount(); s++) {
+				int n = (lod.ringOffsets[s + 1] - lod.ringOffsets[s]) / 2;
+				int[] xs = new int[n];
+				int[] ys = new int[n];
+
+				view.transform(lod.coordinates, lod.ringOffsets[s], xs, ys, n);
+				shapes.add(new Polygon(xs, ys, n));
+			}
+
+			shapes = Collections.unmodifiableList(shapes);
+			synchronized (projectionCache) {
+				projectionCache.put(view, shapes);
 			}
 			return shapes;
 		}
@@ -431,23 +1048,90 @@ public class Map {
 		 * as the other way around.
 		 * 
 		 * @param neighbourToAdd the neighbour country that is to be added to be added.
+		 *                       Should neighbourToAdd be null, or should the two
+		 *                       countries not belong to the same map, e.g. because
+		 *                       one was created with the public constructor, nothing
+		 *                       will happen.
 		 */
 		public void addNeighbour(Country neighbourToAdd) {
-			adjacencyMatrix[numId][neighbourToAdd.numId] = 1;
-			adjacencyMatrix[neighbourToAdd.numId][numId] = 1;
+			if (map != null && neighbourToAdd != null && neighbourToAdd.map == map)
+				map.graph.addEdge(numId, neighbourToAdd.numId);
+		}
+
+		/**
+		 * Checks whether the specified country is a neighbour of this country. This
+		 * check takes constant time.
+		 * 
+		 * @param other is the country to check.
+		 * @return true if other is a neighbour of this country. Should other be null
+		 *         or belong to a different map false will be returned.
+		 */
+		public boolean isNeighbour(Country other) {
+			return map != null && other != null && other.map == map && map.graph.isNeighbour(numId, other.numId);
+		}
+
+		/**
+		 * Getter for the number of neighbours of this country.
+		 * 
+		 * @return the number of neighbouring countries. Should this country not
+		 *         belong to a map 0 will be returned.
+		 */
+		public int getNeighbourCount() {
+			if (map == null)
+				return 0;
+			return map.graph.degree(numId);
+		}
+
+		/**
+		 * Getter for a single neighbour of this country. Together with
+		 * {@link #getNeighbourCount()} this allows iterating over all neighbours
+		 * without creating any objects. The neighbours are ordered the way they are
+		 * listed in the mapdata.
+		 * 
+		 * @param index is the index of the neighbour, from 0 (inclusive) to
+		 *              getNeighbourCount() (exclusive).
+		 * @return the neighbour at the specified index.
+		 * @throws IndexOutOfBoundsException should index be out of range, which it
+		 *                                   always is should this country not belong
+		 *                                   to a map.
+		 */
+		public Country getNeighbour(int index) {
+			if (map == null)
+				throw new IndexOutOfBoundsException("country " + id + " has no neighbours");
+			return map.countries.get(map.graph.neighbour(numId, index));
+		}
+
+		/**
+		 * Calls the specified action for every neighbour of this country without
+		 * creating a list of them first.
+		 * 
+		 * @param action is the action that is called for each neighbour. Should this
+		 *               country not belong to a map it will not be called.
+		 */
+		public void forEachNeighbour(Consumer<Country> action) {
+			if (map == null)
+				return;
+
+			CountryGraph.Csr csr = map.graph.csr();
+			for (int i = csr.offsets[numId]; i < csr.offsets[numId + 1]; i++)
+				action.accept(map.countries.get(csr.targets[i]));
 		}
 
 		/**
 		 * Compiles a list of all countries that are neighbours to this country.
 		 * 
-		 * @return list of all neighbouring countries.
+		 * @return list of all neighbouring countries. Should this country not belong
+		 *         to a map the list will be empty.
 		 */
 		public List<Country> getNeighbours() {
-			List<Country> neighbours = new ArrayList<>();
+			if (map == null)
+				return new ArrayList<>();
+
+			CountryGraph.Csr csr = map.graph.csr();
+			List<Country> neighbours = new ArrayList<>(csr.offsets[numId + 1] - csr.offsets[numId]);
 
-			for (int i = 0; i < countries.size(); i++)
-				if (adjacencyMatrix[numId][i] != 0)
-					neighbours.add(countries.get(i));
+			for (int i = csr.offsets[numId]; i < csr.offsets[numId + 1]; i++)
+				neighbours.add(map.countries.get(csr.targets[i]));
 
 			return neighbours;
 		}
@@ -462,13 +1146,14 @@ public class Map {
 		}
 
 		/**
-		 * Setter for the countries color.
+		 * Setter for the countries color. This method can be called from any thread.
+		 * To change several countries at once use {@link Map#update(Consumer)}.
 		 * 
 		 * @param c is the new color. Should c be null nothing will happen.
 		 */
 		public void setColor(Color c) {
 			if (c != null)
-				this.c = c;
+				update(() -> writeColor(c));
 		}
 
 		/**
@@ -481,23 +1166,24 @@ public class Map {
 		}
 
 		/**
-		 * Setter for the hover color.
+		 * Setter for the hover color. This method can be called from any thread.
 		 * 
 		 * @param hoverColor is the new hover color. Should null be specified null will
 		 *                   be the new hover color.
 		 */
 		public void setHoverColor(Color hoverColor) {
-			this.hoverColor = hoverColor;
+			update(() -> writeHoverColor(hoverColor));
 		}
 
 		/**
 		 * Setter for the tooltip text, the text to be displayed in a small label
-		 * besides the mouse if the mouse is resting on this country.
+		 * besides the mouse if the mouse is resting on this country. This method can
+		 * be called from any thread.
 		 * 
 		 * @param tooltipText is the new tooltiptext.
 		 */
 		public void setTooltipText(String tooltipText) {
-			this.tooltipText = tooltipText;
+			update(() -> writeTooltipText(tooltipText));
 		}
 
 		/**
@@ -512,13 +1198,13 @@ public class Map {
 
 		/**
 		 * Getter for the label of the country, the text to be displayed permanently on
-		 * the map.
+		 * the map. This method can be called from any thread.
 		 * 
 		 * @param label is the new String to be set as the label. Should label be null
 		 *              or an empty String no label will be displayed.
 		 */
 		public void setLabel(String label) {
-			this.label = label;
+			update(() -> writeLabel(label));
 		}
 
 		/**
@@ -534,10 +1220,162 @@ public class Map {
 			return label;
 		}
 
+		/**
+		 * Getter for the laid out label of the country. The last
+		 * {@link #LABEL_LAYOUTS} layouts are kept, so a label drawn in several
+		 * contexts, e.g. the base layer and the screen of a Window, or with
+		 * different labels by parallel renders, is not laid out anew every time.
+		 * 
+		 * @param label is the text of the label, e.g. the label of the country in a
+		 *              snapshot.
+		 * @param font  is the font the label is drawn with.
+		 * @param frc   is the context the label is drawn in.
+		 * @return the layout of the label. Should label be empty null will be
+		 *         returned.
+		 */
+		LabelLayout getLabelLayout(String label, Font font, FontRenderContext frc) {
+			if (label.isEmpty())
+				return null;
+
+			LabelLayout[] layouts = labelLayouts;
+			for (LabelLayout layout : layouts)
+				if (layout.matches(label, font, frc))
+					return layout;
+
+			LabelLayout layout = new LabelLayout(label, font, frc);
+			LabelLayout[] updated = new LabelLayout[Math.min(layouts.length + 1, LABEL_LAYOUTS)];
+			updated[0] = layout;
+			System.arraycopy(layouts, 0, updated, 1, updated.length - 1);
+			labelLayouts = updated; // a layout added concurrently may be lost, it is only laid out again
+			return layout;
+		}
+
+		/**
+		 * Changes the state of this country atomically and notifies the map.
+		 * 
+		 * @param write writes the new state and returns whether the drawn state
+		 *              changed.
+		 */
+		private void update(BooleanSupplier write) {
+			if (map != null)
+				map.update(write);
+			else
+				synchronized (this) {
+					write.getAsBoolean();
+				}
+		}
+
+		/**
+		 * Writes the color. Must be called while holding the state lock of the map.
+		 * 
+		 * @param c is the new color.
+		 * @return whether the color changed.
+		 */
+		boolean writeColor(Color c) {
+			if (c.equals(this.c))
+				return false;
+			this.c = c;
+			return true;
+		}
+
+		/**
+		 * Writes the label. Must be called while holding the state lock of the map.
+		 * 
+		 * @param label is the new label.
+		 * @return whether the drawn label changed.
+		 */
+		boolean writeLabel(String label) {
+			boolean changed = !getLabel().equals(label == null ? "" : label);
+			this.label = label;
+			return changed;
+		}
+
+		/**
+		 * Writes the hover color. Must be called while holding the state lock of the
+		 * map.
+		 * 
+		 * @param hoverColor is the new hover color.
+		 * @return false, the hover color is not part of the drawn state.
+		 */
+		boolean writeHoverColor(Color hoverColor) {
+			this.hoverColor = hoverColor;
+			return false;
+		}
+
+		/**
+		 * Writes the tooltip text. Must be called while holding the state lock of the
+		 * map.
+		 * 
+		 * @param tooltipText is the new tooltip text.
+		 * @return false, the tooltip text is not part of the drawn state.
+		 */
+		boolean writeTooltipText(String tooltipText) {
+			this.tooltipText = tooltipText;
+			return false;
+		}
+
 		@Override
 		public String toString() {
 			return id;
 		}
 	}
 
+	/**
+	 * This class is an entry of the list of labels drawn after all countries of a
+	 * frame.
+	 * 
+	 * @author Niklas S.
+	 *
+	 */
+	private static final class PlacedLabel {
+
+		private final LabelLayout layout;
+		private final float x;
+		private final float y;
+		private final boolean black;
+
+		/**
+		 * Constructor for a label placed at an anchor in screenspace.
+		 * 
+		 * @param layout is the laid out label.
+		 * @param x      is the x coordinate of the anchor.
+		 * @param y      is the y coordinate of the anchor.
+		 * @param black  is whether the label is drawn black instead of light gray.
+		 */
+		PlacedLabel(LabelLayout layout, float x, float y, boolean black) {
+			this.layout = layout;
+			this.x = x;
+			this.y = y;
+			this.black = black;
+		}
+	}
+
+	/**
+	 * This class caches the projected shapes of one country for the most recently
+	 * used viewports. One frame draws the map up to four times (the view, its left
+	 * and right copy and the hovered country) so only a handful of entries are
+	 * kept. Entries of outdated viewports are evicted as soon as newer ones are
+	 * added.
+	 * 
+	 * @author Niklas S.
+	 *
+	 */
+	private static final class ProjectionCache extends LinkedHashMap<ViewSettings, List<Shape>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private static final int CAPACITY = 4;
+
+		/**
+		 * Constructor creating an empty cache ordered by access.
+		 */
+		ProjectionCache() {
+			super(CAPACITY * 2, 0.75f, true);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(java.util.Map.Entry<ViewSettings, List<Shape>> eldest) {
+			return size() > CAPACITY;
+		}
+	}
 }
@@ -0,0 +1,44 @@
+package ui;
+
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * This class is a build-time tool converting mapdata from the text format into
+ * the precompiled binary format. Placing the binary file next to the text file
+ * (same name with the extension ".bin") makes {@link Map} load the binary file
+ * instead, which skips parsing the draw instructions and computing adjacency.
+ * <p>
+ * Usage: {@code java ui.MapCompiler <input.txt> <output.bin>}
+ * 
+ * @author Niklas S.
+ *
+ */
+public class MapCompiler {
+
+	/**
+	 * Converts the text mapdata given as first argument into binary mapdata
+	 * written to the file given as second argument.
+	 * 
+	 * @param args are the input and output file paths.
+	 * @throws IOException should reading or writing fail.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("usage: java ui.MapCompiler <input.txt> <output.bin>");
+			System.exit(1);
+		}
+
+		MapFile data = MapFile.readText(new FileInputStream(args[0]));
+
+		try (OutputStream os = new BufferedOutputStream(new FileOutputStream(args[1]))) {
+			data.writeBinary(os);
+		}
+
+		System.out.printf("%s: %d countries, %d borders, %d lines%n", args[1], data.countries.size(),
+				data.borders.size(), data.lines.size());
+	}
+}
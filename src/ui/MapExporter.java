@@ -0,0 +1,266 @@
+package ui;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * This class exports sequences of map states, e.g. the course of a game, as
+ * numbered PNG files or as one animated GIF. Every state is a {@link MapStyle}
+ * snapshot and becomes one frame.
+ * <p>
+ * Frames are rendered in parallel by a pool of worker threads, each drawing
+ * into its own image, and written in the order of the states. Only a few frames
+ * ahead of the one being written are rendered at a time, so arbitrarily long
+ * sequences can be exported without holding all frames in memory.
+ *
+ * @author Niklas S.
+ *
+ */
+public class MapExporter {
+
+	private final MapRenderer renderer;
+	private final ViewSettings view;
+
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Constructor creating an exporter drawing every frame with the same view.
+	 *
+	 * @param renderer is the renderer used to draw the frames.
+	 * @param view     is the view of all frames. Its viewport size is the size of
+	 *                 the exported images.
+	 */
+	public MapExporter(MapRenderer renderer, ViewSettings view) {
+		this.renderer = renderer;
+		this.view = view;
+	}
+
+	/**
+	 * Setter for the number of threads rendering frames in parallel.
+	 *
+	 * @param threads is the number of threads. The default is the number of
+	 *                available processors. Should threads be less than 1 it will
+	 *                be set to 1.
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Getter for the number of threads rendering frames in parallel.
+	 *
+	 * @return the number of threads.
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Turns a sequence of changes into a sequence of states by applying each
+	 * change to the state before it, e.g.
+	 * <p>
+	 * {@code timeline(MapStyle.of(map), Stream.of(s -> s.withColor(alaska, Color.RED), ...))}
+	 *
+	 * @param initial is the state before the first change.
+	 * @param changes are the changes, one per state.
+	 * @return the states after each change. The initial state is not included.
+	 */
+	public static Stream<MapStyle> timeline(MapStyle initial, Stream<UnaryOperator<MapStyle>> changes) {
+		MapStyle[] state = { initial };
+		return changes.sequential().map(change -> state[0] = change.apply(state[0]));
+	}
+
+	/**
+	 * Exports every state as a PNG file. The files are named with the prefix
+	 * followed by the index of the frame, padded to five digits, e.g.
+	 * frame-00000.png.
+	 *
+	 * @param states    are the states to be exported, one frame each.
+	 * @param directory is the directory the files are written to. It is created
+	 *                  should it not exist.
+	 * @param prefix    is the start of the file names.
+	 * @return the number of frames written.
+	 * @throws IOException should a frame fail to be rendered or written.
+	 */
+	public int exportPngs(Stream<MapStyle> states, Path directory, String prefix) throws IOException {
+		Files.createDirectories(directory);
+
+		// encoding takes longer than rendering so it happens on the workers as well
+		return export(states, style -> {
+			ByteArrayOutputStream png = new ByteArrayOutputStream();
+			ImageIO.write(renderer.render(view, style), "png", png);
+			return png.toByteArray();
+		}, (index, png) -> Files.write(directory.resolve(String.format("%s-%05d.png", prefix, index)), png));
+	}
+
+	/**
+	 * Exports all states as one animated GIF that loops forever.
+	 *
+	 * @param states     are the states to be exported, one frame each.
+	 * @param file       is the file to be written.
+	 * @param frameDelay is the time each frame is shown in milliseconds. GIFs
+	 *                   store it in hundredths of a second.
+	 * @return the number of frames written.
+	 * @throws IOException should a frame fail to be rendered or written.
+	 */
+	public int exportGif(Stream<MapStyle> states, Path file, int frameDelay) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+
+		// closing the ImageOutputStream does not close the stream it wraps
+		try (OutputStream os = Files.newOutputStream(file);
+				ImageOutputStream out = ImageIO.createImageOutputStream(os)) {
+			if (out == null)
+				throw new IOException("no image output stream available for " + file);
+
+			writer.setOutput(out);
+			writer.prepareWriteSequence(null);
+
+			int frames = export(states, style -> renderer.render(view, style), (index, image) -> {
+				IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image),
+						null);
+				setGifFrameMetadata(metadata, frameDelay, index == 0);
+				writer.writeToSequence(new IIOImage(image, null, metadata), null);
+			});
+
+			writer.endWriteSequence();
+			return frames;
+		} finally {
+			writer.dispose();
+		}
+	}
+
+	/**
+	 * Renders all states in parallel and passes the results to the sink in the
+	 * order of the states.
+	 *
+	 * @param states are the states to be rendered.
+	 * @param render turns a state into a frame. Called by the workers.
+	 * @param sink   receives the frames in order. Called by the calling thread.
+	 * @return the number of frames.
+	 * @throws IOException should rendering or the sink fail.
+	 */
+	private <T> int export(Stream<MapStyle> states, FrameRenderer<T> render, FrameSink<T> sink) throws IOException {
+		ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "MapExporter");
+			t.setDaemon(true);
+			return t;
+		});
+
+		ArrayDeque<Future<T>> inFlight = new ArrayDeque<>();
+		int written = 0;
+		try {
+			Iterator<MapStyle> it = states.iterator();
+			while (it.hasNext() || !inFlight.isEmpty()) {
+				// keep every worker busy with a few frames queued behind them
+				while (it.hasNext() && inFlight.size() < threads * 2) {
+					MapStyle style = it.next();
+					Callable<T> task = () -> render.render(style);
+					inFlight.add(workers.submit(task));
+				}
+
+				sink.accept(written, inFlight.poll().get());
+				written++;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("export interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException("frame " + written + " could not be rendered", e.getCause());
+		} finally {
+			workers.shutdownNow();
+		}
+
+		return written;
+	}
+
+	/**
+	 * Sets the delay of a frame and, for the first frame, makes the animation
+	 * loop forever.
+	 *
+	 * @param metadata   is the metadata of the frame.
+	 * @param frameDelay is the delay in milliseconds.
+	 * @param first      is whether this is the first frame of the animation.
+	 * @throws IOException should the metadata not be writable.
+	 */
+	private static void setGifFrameMetadata(IIOMetadata metadata, int frameDelay, boolean first) throws IOException {
+		String format = metadata.getNativeMetadataFormatName();
+		IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+
+		IIOMetadataNode control = child(root, "GraphicControlExtension");
+		control.setAttribute("disposalMethod", "none");
+		control.setAttribute("userInputFlag", "FALSE");
+		control.setAttribute("transparentColorFlag", "FALSE");
+		control.setAttribute("delayTime", Integer.toString(Math.max(0, frameDelay / 10)));
+		control.setAttribute("transparentColorIndex", "0");
+
+		if (first) {
+			IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+			loop.setAttribute("applicationID", "NETSCAPE");
+			loop.setAttribute("authenticationCode", "2.0");
+			loop.setUserObject(new byte[] { 1, 0, 0 }); // loop forever
+			child(root, "ApplicationExtensions").appendChild(loop);
+		}
+
+		metadata.setFromTree(format, root);
+	}
+
+	/**
+	 * Getter for a child node, creating it should it not exist.
+	 *
+	 * @param parent is the parent node.
+	 * @param name   is the name of the child.
+	 * @return the child node.
+	 */
+	private static IIOMetadataNode child(IIOMetadataNode parent, String name) {
+		for (int i = 0; i < parent.getLength(); i++)
+			if (parent.item(i).getNodeName().equals(name))
+				return (IIOMetadataNode) parent.item(i);
+
+		IIOMetadataNode child = new IIOMetadataNode(name);
+		parent.appendChild(child);
+		return child;
+	}
+
+	/**
+	 * This interface turns a state into a frame on a worker thread.
+	 *
+	 * @author Niklas S.
+	 *
+	 */
+	private interface FrameRenderer<T> {
+		T render(MapStyle style) throws IOException;
+	}
+
+	/**
+	 * This interface receives rendered frames in order.
+	 *
+	 * @author Niklas S.
+	 *
+	 */
+	private interface FrameSink<T> {
+		void accept(int index, T frame) throws IOException;
+	}
+}
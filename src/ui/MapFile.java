@@ -0,0 +1,398 @@
+package ui;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import ui.Map.Country;
+
+/**
+ * This class holds the contents of a mapdata file and reads them from either
+ * the text format with SVG-like draw instructions or the precompiled binary
+ * format.
+ * <p>
+ * The binary format is written with {@link MapCompiler} and stores everything
+ * in big endian byte order:
+ *
+ * <pre>
+ * int     magic ("RMAP")
+ * int     version
+ * double  width, height
+ * int     line count, then per line: double x1, y1, x2, y2
+ * int     country count, then per country:
+ *         int id length, UTF-8 id bytes
+ *         int shape count, then per shape:
+ *                 double minX, minY, maxX, maxY
+ *                 int vertex count, then per vertex: double x, y
+ * int     border count, then per border: int numId, int numId
+ * </pre>
+ *
+ * @author Niklas S.
+ *
+ */
+class MapFile {
+
+	static final int MAGIC = 0x524D4150; // "RMAP"
+	static final int VERSION = 1;
+
+	/**
+	 * The distance on each axis below which vertices of two countries are
+	 * considered to be shared, making the countries neighbours.
+	 */
+	static final double ADJACENCY_TOLERANCE = 1;
+
+	double width;
+	double height;
+	List<double[]> lines;
+	List<Country> countries;
+	List<int[]> borders; // pairs of numIds of neighbouring countries
+
+	/**
+	 * Loads the mapdata resource at the specified classpath location. Should a
+	 * precompiled binary version (same name with the extension ".bin") exist it
+	 * will be used, otherwise the text version (extension ".txt") is parsed.
+	 *
+	 * @param resource is the classpath location of the mapdata with or without
+	 *                 file extension.
+	 * @return the loaded mapdata.
+	 * @throws IOException should neither version be readable.
+	 */
+	static MapFile load(String resource) throws IOException {
+		if (resource.endsWith(".txt") || resource.endsWith(".bin"))
+			resource = resource.substring(0, resource.length() - 4);
+
+		URL binary = MapFile.class.getResource(resource + ".bin");
+		if (binary != null)
+			return readBinary(map(binary));
+
+		InputStream is = MapFile.class.getResourceAsStream(resource + ".txt");
+		if (is == null)
+			throw new IOException("mapdata " + resource + " not found");
+
+		return readText(is);
+	}
+
+	/**
+	 * Reads the mapdata file at the specified path. Files with the extension
+	 * ".bin" are memory mapped and read as binary mapdata, all others are parsed
+	 * as text mapdata.
+	 *
+	 * @param path is the path of the mapdata file.
+	 * @return the loaded mapdata.
+	 * @throws IOException should the file not be readable.
+	 */
+	static MapFile read(Path path) throws IOException {
+		if (path.toString().endsWith(".bin"))
+			return readBinary(map(path.toUri().toURL()));
+
+		return readText(Files.newInputStream(path));
+	}
+
+	/**
+	 * Reads mapdata from a stream, detecting whether it is in the binary or the
+	 * text format.
+	 *
+	 * @param is is the stream containing the mapdata. It will be closed.
+	 * @return the loaded mapdata.
+	 * @throws IOException should the stream not be readable.
+	 */
+	static MapFile read(InputStream is) throws IOException {
+		byte[] bytes = readAll(is);
+
+		if (bytes.length >= 4 && ByteBuffer.wrap(bytes).getInt() == MAGIC)
+			return readBinary(ByteBuffer.wrap(bytes));
+
+		return readText(new ByteArrayInputStream(bytes));
+	}
+
+	/**
+	 * Reads the remaining contents of a stream and closes it.
+	 *
+	 * @param is is the stream to be read.
+	 * @return the contents of the stream.
+	 * @throws IOException should the stream not be readable.
+	 */
+	private static byte[] readAll(InputStream is) throws IOException {
+		try (InputStream in = is) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			for (int read = in.read(buffer); read != -1; read = in.read(buffer))
+				bytes.write(buffer, 0, read);
+
+			return bytes.toByteArray();
+		}
+	}
+
+	/**
+	 * Maps the contents of the specified URL into memory. Files are memory
+	 * mapped, other resources (e.g. inside a jar) are read into a buffer.
+	 *
+	 * @param url is the location of the data.
+	 * @return a buffer with the contents of the url.
+	 * @throws IOException should the data not be readable.
+	 */
+	private static ByteBuffer map(URL url) throws IOException {
+		if (url.getProtocol().equals("file")) {
+			Path path;
+			try {
+				path = Paths.get(url.toURI());
+			} catch (URISyntaxException e) {
+				throw new IOException(e);
+			}
+
+			try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+				return fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+			}
+		}
+
+		return ByteBuffer.wrap(readAll(url.openStream()));
+	}
+
+	/**
+	 * Parses mapdata in the text format and computes the adjacency of the
+	 * countries. The countries are parsed in parallel, their numIds are assigned
+	 * in the order they are listed in regardless.
+	 *
+	 * @param is is the stream containing the text mapdata. It will be closed.
+	 * @return the parsed mapdata.
+	 */
+	static MapFile readText(InputStream is) {
+		MapFile file = new MapFile();
+		Scanner sc = new Scanner(is);
+		file.countries = new ArrayList<>();
+		file.lines = new ArrayList<>();
+
+		for (int i = 0; i < 2; i++) {
+			String[] split = sc.nextLine().split("=");
+
+			if (split[0].equalsIgnoreCase("width"))
+				file.width = Double.parseDouble(split[1]);
+			if (split[0].equalsIgnoreCase("height"))
+				file.height = Double.parseDouble(split[1]);
+		}
+
+		// line data
+		String linedataline = sc.nextLine().replace("lines", "");
+		String[] lines = linedataline.split(" M ");
+		for (String line : lines) {
+			if (line.isEmpty())
+				continue;
+			String[] segments = line.split(" L ");
+
+			double[] da = new double[] { Double.parseDouble(segments[0].split(",")[0]),
+					Double.parseDouble(segments[0].split(",")[1]), Double.parseDouble(segments[1].split(",")[0]),
+					Double.parseDouble(segments[1].split(",")[1]) };
+
+			file.lines.add(da);
+		}
+
+		// country lines are collected first so their numIds are fixed by their order
+		List<String> countryLines = new ArrayList<>();
+		while (sc.hasNextLine()) {
+			String line = sc.nextLine();
+
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+
+			countryLines.add(line);
+		}
+
+		sc.close();
+
+		// parsing the draw instructions (and computing bounding boxes) in parallel
+		Country[] countries = new Country[countryLines.size()];
+		IntStream.range(0, countries.length).parallel().forEach(numId -> {
+			String line = countryLines.get(numId);
+			int split = line.indexOf('=');
+			countries[numId] = new Country(numId, line.substring(0, split), line.substring(split + 1));
+		});
+		file.countries.addAll(Arrays.asList(countries));
+
+		file.borders = computeBorders(file.countries, ADJACENCY_TOLERANCE);
+		return file;
+	}
+
+	/**
+	 * Reads mapdata in the binary format.
+	 *
+	 * @param buffer is the buffer containing the binary mapdata.
+	 * @return the read mapdata.
+	 * @throws IOException should the buffer not contain mapdata of a supported
+	 *                     version.
+	 */
+	static MapFile readBinary(ByteBuffer buffer) throws IOException {
+		if (buffer.getInt() != MAGIC)
+			throw new IOException("not a binary mapdata file");
+		int version = buffer.getInt();
+		if (version != VERSION)
+			throw new IOException("unsupported binary mapdata version " + version);
+
+		MapFile file = new MapFile();
+		file.width = buffer.getDouble();
+		file.height = buffer.getDouble();
+
+		int lineCount = buffer.getInt();
+		file.lines = new ArrayList<>(lineCount);
+		for (int i = 0; i < lineCount; i++)
+			file.lines.add(new double[] { buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+					buffer.getDouble() });
+
+		int countryCount = buffer.getInt();
+		file.countries = new ArrayList<>(countryCount);
+		for (int numId = 0; numId < countryCount; numId++) {
+			byte[] id = new byte[buffer.getInt()];
+			buffer.get(id);
+
+			int shapeCount = buffer.getInt();
+			double[] shapeBounds = new double[shapeCount * 4];
+			int[] ringOffsets = new int[shapeCount + 1];
+
+			// skim the shapes for their lengths first so the coordinates are allocated once
+			int start = buffer.position();
+			for (int s = 0; s < shapeCount; s++) {
+				buffer.position(buffer.position() + 4 * Double.BYTES);
+				int length = buffer.getInt() * 2;
+				ringOffsets[s + 1] = ringOffsets[s] + length;
+				buffer.position(buffer.position() + length * Double.BYTES);
+			}
+			buffer.position(start);
+
+			double[] coordinates = new double[ringOffsets[shapeCount]];
+			for (int s = 0; s < shapeCount; s++) {
+				buffer.asDoubleBuffer().get(shapeBounds, s * 4, 4);
+				buffer.position(buffer.position() + 4 * Double.BYTES);
+
+				int length = buffer.getInt() * 2;
+				buffer.asDoubleBuffer().get(coordinates, ringOffsets[s], length);
+				buffer.position(buffer.position() + length * Double.BYTES);
+			}
+
+			PathParser.Shapes shapes = new PathParser.Shapes();
+			shapes.coordinates = coordinates;
+			shapes.ringOffsets = ringOffsets;
+
+			file.countries.add(new Country(numId, new String(id, StandardCharsets.UTF_8), shapes, shapeBounds));
+		}
+
+		int borderCount = buffer.getInt();
+		file.borders = new ArrayList<>(borderCount);
+		for (int i = 0; i < borderCount; i++)
+			file.borders.add(new int[] { buffer.getInt(), buffer.getInt() });
+
+		return file;
+	}
+
+	/**
+	 * Writes this mapdata in the binary format.
+	 *
+	 * @param os is the stream the binary mapdata is written to. It will not be
+	 *           closed.
+	 * @throws IOException should writing to the stream fail.
+	 */
+	void writeBinary(OutputStream os) throws IOException {
+		DataOutputStream out = new DataOutputStream(os);
+
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeDouble(width);
+		out.writeDouble(height);
+
+		out.writeInt(lines.size());
+		for (double[] line : lines)
+			for (double d : line)
+				out.writeDouble(d);
+
+		out.writeInt(countries.size());
+		for (Country c : countries) {
+			byte[] id = c.getId().getBytes(StandardCharsets.UTF_8);
+			out.writeInt(id.length);
+			out.write(id);
+
+			double[] coordinates = c.getCoordinates();
+			int[] ringOffsets = c.getRingOffsets();
+			double[] shapeBounds = c.getShapeBounds();
+			out.writeInt(c.getShapeCount());
+			for (int s = 0; s < c.getShapeCount(); s++) {
+				for (int i = 0; i < 4; i++)
+					out.writeDouble(shapeBounds[s * 4 + i]);
+
+				out.writeInt((ringOffsets[s + 1] - ringOffsets[s]) / 2);
+				for (int i = ringOffsets[s]; i < ringOffsets[s + 1]; i++)
+					out.writeDouble(coordinates[i]);
+			}
+		}
+
+		out.writeInt(borders.size());
+		for (int[] border : borders) {
+			out.writeInt(border[0]);
+			out.writeInt(border[1]);
+		}
+
+		out.flush();
+	}
+
+	/**
+	 * Finds all pairs of countries that have at least one pair of vertices closer
+	 * than the tolerance on both axes. The vertices are snapped into a
+	 * {@link VertexGrid} so every vertex is only compared to vertices in the
+	 * neighbouring buckets instead of every vertex of every other country. The
+	 * grid is built sequentially and then queried for all countries in parallel.
+	 *
+	 * @param countries are the countries whose borders are to be found. Their
+	 *                  numIds have to be their index in the list.
+	 * @param tolerance is the distance on each axis below which two vertices are
+	 *                  considered to be shared by both countries.
+	 * @return the pairs of numIds of neighbouring countries. Every pair is listed
+	 *         once with the larger numId first.
+	 */
+	static List<int[]> computeBorders(List<Country> countries, double tolerance) {
+		VertexGrid grid = new VertexGrid(tolerance);
+
+		for (Country c : countries) {
+			double[] coordinates = c.getCoordinates();
+			for (int i = 0; i < coordinates.length; i += 2)
+				grid.add(c.getNumId(), coordinates[i], coordinates[i + 1]);
+		}
+
+		// the grid is only read from here on so countries can be matched in parallel
+		int[][] neighbours = new int[countries.size()][];
+		countries.parallelStream().forEach(c -> {
+			Set<Integer> found = new HashSet<>();
+
+			double[] coordinates = c.getCoordinates();
+			for (int i = 0; i < coordinates.length; i += 2)
+				grid.forEachNear(c.getNumId(), coordinates[i], coordinates[i + 1], other -> {
+					if (other < c.getNumId())
+						found.add(other);
+				});
+
+			neighbours[c.getNumId()] = found.stream().mapToInt(Integer::intValue).sorted().toArray();
+		});
+
+		List<int[]> borders = new ArrayList<>();
+		for (int numId = 0; numId < neighbours.length; numId++)
+			for (int other : neighbours[numId])
+				borders.add(new int[] { numId, other });
+
+		return borders;
+	}
+}
@@ -0,0 +1,144 @@
+package ui;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * This class draws a map without any Swing components, e.g. to generate images
+ * of a map on a server running with java.awt.headless=true. It draws the
+ * background, the countries and their labels and the sea lines, including the
+ * copies of the map to the left and the right of the view for horizontal world
+ * wrapping, exactly the way a {@link Window} shows them.
+ * <p>
+ * A renderer can be used from multiple threads at the same time as long as
+ * every thread draws with its own Graphics2D.
+ *
+ * @author Niklas S.
+ *
+ */
+public class MapRenderer {
+
+	private final Map map;
+	private final RenderResources resources;
+
+	private volatile Color bgColor = Color.WHITE;
+	private volatile RenderMode mode = RenderMode.PROJECTED;
+
+	/**
+	 * Constructor creating a renderer for a map.
+	 *
+	 * @param map is the map to be drawn. Should map be null the
+	 *            {@link Map#getDefault() default map} will be drawn.
+	 */
+	public MapRenderer(Map map) {
+		if (map == null)
+			map = Map.getDefault();
+		this.map = map;
+
+		resources = new RenderResources();
+	}
+
+	/**
+	 * Getter for the map this renderer draws.
+	 *
+	 * @return the map.
+	 */
+	public Map getMap() {
+		return map;
+	}
+
+	/**
+	 * Setter for the background color of the map (i.e. the color of the ocean).
+	 *
+	 * @param bgColor the new background color of the map. Should bgColor be null
+	 *                nothing will happen.
+	 */
+	public void setBackgroundColor(Color bgColor) {
+		if (bgColor != null)
+			this.bgColor = bgColor;
+	}
+
+	/**
+	 * Getter for the background color of the map.
+	 *
+	 * @return the background color of the map.
+	 */
+	public Color getBackgroundColor() {
+		return bgColor;
+	}
+
+	/**
+	 * Setter for the way the countries are drawn.
+	 *
+	 * @param mode the new render mode. Should mode be null nothing will happen.
+	 */
+	public void setRenderMode(RenderMode mode) {
+		if (mode != null)
+			this.mode = mode;
+	}
+
+	/**
+	 * Getter for the way the countries are drawn.
+	 *
+	 * @return the render mode. The default is {@link RenderMode#PROJECTED}.
+	 */
+	public RenderMode getRenderMode() {
+		return mode;
+	}
+
+	/**
+	 * Getter for the fonts used by this renderer.
+	 *
+	 * @return the render resources.
+	 */
+	RenderResources getResources() {
+		return resources;
+	}
+
+	/**
+	 * Draws the map into a new image the size of the viewport of the view.
+	 *
+	 * @param view  is the view to be drawn. Its viewport must not be empty.
+	 * @param style is the snapshot of the colors and labels of the countries.
+	 *              Should style be null the current colors and labels of the
+	 *              countries will be used.
+	 * @return the image.
+	 */
+	public BufferedImage render(ViewSettings view, MapStyle style) {
+		BufferedImage image = new BufferedImage(view.getViewportWidth(), view.getViewportHeight(),
+				BufferedImage.TYPE_INT_RGB);
+
+		Graphics2D g = image.createGraphics();
+		render(g, view, style);
+		g.dispose();
+
+		return image;
+	}
+
+	/**
+	 * Draws the map with the specified graphics, filling the viewport of the view.
+	 *
+	 * @param g     is the graphics to draw with. Its rendering hints, color,
+	 *              stroke and font are changed.
+	 * @param view  is the view to be drawn.
+	 * @param style is the snapshot of the colors and labels of the countries.
+	 *              Should style be null the current colors and labels of the
+	 *              countries will be used.
+	 */
+	public void render(Graphics2D g, ViewSettings view, MapStyle style) {
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+		g.setColor(bgColor);
+		g.fillRect(0, 0, view.getViewportWidth(), view.getViewportHeight());
+
+		g.setFont(resources.getLabelFont(view.getViewportWidth()));
+
+		RenderMode mode = this.mode;
+		map.drawCountries(g, view, style, mode);
+		map.drawCountries(g, view.translate(-map.getWidth(), 0), style, mode);
+		map.drawCountries(g, view.translate(map.getWidth(), 0), style, mode);
+	}
+}
@@ -0,0 +1,136 @@
+package ui;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.List;
+
+import ui.Map.Country;
+
+/**
+ * This class is an immutable snapshot of how the countries of a map are
+ * styled, i.e. their colors and labels. Snapshots can be rendered independently
+ * of the current state of the countries, e.g. from other threads or to render a
+ * sequence of past game states.
+ * <p>
+ * Changing a snapshot creates a new snapshot and leaves the original as it is.
+ *
+ * @author Niklas S.
+ *
+ */
+public final class MapStyle {
+
+	private final Map map;
+	private final Color[] colors;
+	private final String[] labels;
+
+	/**
+	 * Constructor for a snapshot with the specified values.
+	 *
+	 * @param map    is the map the snapshot belongs to.
+	 * @param colors are the colors of all countries indexed by numId.
+	 * @param labels are the labels of all countries indexed by numId.
+	 */
+	private MapStyle(Map map, Color[] colors, String[] labels) {
+		this.map = map;
+		this.colors = colors;
+		this.labels = labels;
+	}
+
+	/**
+	 * Getter for a snapshot of the current colors and labels of all countries of a
+	 * map.
+	 *
+	 * @param map is the map whose countries are to be captured.
+	 * @return the snapshot.
+	 * @see Map#getStyle()
+	 */
+	public static MapStyle of(Map map) {
+		return map.getStyle();
+	}
+
+	/**
+	 * Takes a snapshot of the current colors and labels of all countries of a map.
+	 * Must be called while holding the state lock of the map.
+	 *
+	 * @param map is the map whose countries are to be captured.
+	 * @return the snapshot.
+	 */
+	static MapStyle capture(Map map) {
+		List<Country> countries = map.getCountries();
+		Color[] colors = new Color[countries.size()];
+		String[] labels = new String[countries.size()];
+
+		for (Country c : countries) {
+			colors[c.getNumId()] = c.getColor();
+			labels[c.getNumId()] = c.getLabel();
+		}
+
+		return new MapStyle(map, colors, labels);
+	}
+
+	/**
+	 * Getter for the map this snapshot belongs to.
+	 *
+	 * @return the map.
+	 */
+	public Map getMap() {
+		return map;
+	}
+
+	/**
+	 * Getter for the color of a country in this snapshot.
+	 *
+	 * @param c is the country.
+	 * @return the color of the country.
+	 */
+	public Color getColor(Country c) {
+		return colors[c.getNumId()];
+	}
+
+	/**
+	 * Getter for the label of a country in this snapshot.
+	 *
+	 * @param c is the country.
+	 * @return the label of the country. Should the country have no label an empty
+	 *         String will be returned.
+	 */
+	public String getLabel(Country c) {
+		return labels[c.getNumId()];
+	}
+
+	/**
+	 * Creates a snapshot with a different color for one country.
+	 *
+	 * @param c     is the country to be recolored.
+	 * @param color is the new color of the country. Should color be null the
+	 *              country will keep its color.
+	 * @return the new snapshot.
+	 */
+	public MapStyle withColor(Country c, Color color) {
+		if (color == null || color.equals(colors[c.getNumId()]))
+			return this;
+
+		Color[] colors = Arrays.copyOf(this.colors, this.colors.length);
+		colors[c.getNumId()] = color;
+		return new MapStyle(map, colors, labels);
+	}
+
+	/**
+	 * Creates a snapshot with a different label for one country.
+	 *
+	 * @param c     is the country to be relabeled.
+	 * @param label is the new label of the country. Should label be null the
+	 *              country will have no label.
+	 * @return the new snapshot.
+	 */
+	public MapStyle withLabel(Country c, String label) {
+		if (label == null)
+			label = "";
+		if (label.equals(labels[c.getNumId()]))
+			return this;
+
+		String[] labels = Arrays.copyOf(this.labels, this.labels.length);
+		labels[c.getNumId()] = label;
+		return new MapStyle(map, colors, labels);
+	}
+}
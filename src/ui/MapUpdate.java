@@ -0,0 +1,144 @@
+package ui;
+
+import java.awt.Color;
+import java.util.List;
+
+import ui.Map.Country;
+
+/**
+ * This class is a batch of changes to the countries of a map. Changes are
+ * recorded without affecting the countries until the batch is applied; then all
+ * of them take effect at once. Batches are created with {@link Map#newUpdate()}
+ * or filled by {@link Map#update(java.util.function.Consumer)}.
+ * <p>
+ * Applying a batch is safe from any thread. Snapshots of the map and frames
+ * drawn by a Window contain either none or all of its changes, and every Window
+ * showing the map is repainted once per batch. Recording changes is not thread
+ * safe, every thread should fill its own batch.
+ *
+ * @author Niklas S.
+ *
+ */
+public final class MapUpdate {
+
+	private final Map map;
+
+	// pending changes indexed by numId
+	private final Color[] colors; // null if unchanged
+	private final String[] labels; // null if unchanged
+	private final Color[] hoverColors;
+	private final boolean[] hoverColorChanged;
+	private final String[] tooltipTexts;
+	private final boolean[] tooltipTextChanged;
+
+	/**
+	 * Constructor creating an empty batch.
+	 *
+	 * @param map is the map the batch changes.
+	 */
+	MapUpdate(Map map) {
+		this.map = map;
+
+		int count = map.getCountries().size();
+		colors = new Color[count];
+		labels = new String[count];
+		hoverColors = new Color[count];
+		hoverColorChanged = new boolean[count];
+		tooltipTexts = new String[count];
+		tooltipTextChanged = new boolean[count];
+	}
+
+	/**
+	 * Records a new color for a country.
+	 *
+	 * @param c     is the country. It must belong to the map of this batch.
+	 * @param color is the new color. Should color be null the color will not
+	 *              change.
+	 * @return this batch.
+	 */
+	public MapUpdate setColor(Country c, Color color) {
+		if (color != null)
+			colors[index(c)] = color;
+		return this;
+	}
+
+	/**
+	 * Records a new label for a country.
+	 *
+	 * @param c     is the country. It must belong to the map of this batch.
+	 * @param label is the new label. Should label be null or an empty String no
+	 *              label will be displayed.
+	 * @return this batch.
+	 */
+	public MapUpdate setLabel(Country c, String label) {
+		labels[index(c)] = label == null ? "" : label;
+		return this;
+	}
+
+	/**
+	 * Records a new hover color for a country.
+	 *
+	 * @param c          is the country. It must belong to the map of this batch.
+	 * @param hoverColor is the new hover color. Should hoverColor be null the
+	 *                   fallback hover color of the Window will be used.
+	 * @return this batch.
+	 */
+	public MapUpdate setHoverColor(Country c, Color hoverColor) {
+		int i = index(c);
+		hoverColors[i] = hoverColor;
+		hoverColorChanged[i] = true;
+		return this;
+	}
+
+	/**
+	 * Records a new tooltip text for a country.
+	 *
+	 * @param c           is the country. It must belong to the map of this batch.
+	 * @param tooltipText is the new tooltip text.
+	 * @return this batch.
+	 */
+	public MapUpdate setTooltipText(Country c, String tooltipText) {
+		int i = index(c);
+		tooltipTexts[i] = tooltipText;
+		tooltipTextChanged[i] = true;
+		return this;
+	}
+
+	/**
+	 * Applies all recorded changes at once. The batch keeps its changes and can be
+	 * applied again.
+	 */
+	public void apply() {
+		List<Country> countries = map.getCountries();
+
+		map.update(() -> {
+			boolean drawn = false;
+			for (int i = 0; i < colors.length; i++) {
+				Country c = countries.get(i);
+				if (colors[i] != null)
+					drawn |= c.writeColor(colors[i]);
+				if (labels[i] != null)
+					drawn |= c.writeLabel(labels[i]);
+				if (hoverColorChanged[i])
+					c.writeHoverColor(hoverColors[i]);
+				if (tooltipTextChanged[i])
+					c.writeTooltipText(tooltipTexts[i]);
+			}
+			return drawn;
+		});
+	}
+
+	/**
+	 * Getter for the index of the pending changes of a country.
+	 *
+	 * @param c is the country.
+	 * @return the numId of the country.
+	 * @throws IllegalArgumentException should the country not belong to the map of
+	 *                                  this batch.
+	 */
+	private int index(Country c) {
+		if (c == null || c.getNumId() >= colors.length || map.getCountries().get(c.getNumId()) != c)
+			throw new IllegalArgumentException("country " + c + " does not belong to the map of this update");
+		return c.getNumId();
+	}
+}
@@ -0,0 +1,331 @@
+package ui;
+
+import java.util.Arrays;
+
+/**
+ * This class parses the SVG path draw instructions used in the mapdata into
+ * flat coordinate arrays. It runs in a single pass over the characters of the
+ * instructions without creating any intermediate Strings.
+ * <p>
+ * Supported are the commands M, L, H, V and Z in their absolute (upper case)
+ * and relative (lower case) form. Coordinate pairs following a command without
+ * another command in between continue that command, coordinate pairs after a
+ * moveto continue as lineto. Whitespace separated words that are neither a
+ * command nor a number are ignored.
+ * <p>
+ * Vertices are emitted the way the map has always been drawn: the pen position
+ * before every line segment and the pen position when a shape is closed.
+ *
+ * @author Niklas S.
+ *
+ */
+class PathParser {
+
+	private static final double[] POWERS_OF_TEN = new double[23];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++)
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+	}
+
+	private static final ThreadLocal<PathParser> PARSERS = ThreadLocal.withInitial(PathParser::new);
+
+	private CharSequence in;
+	private int pos;
+
+	private double[] coords = new double[256];
+	private int coordCount;
+	private int[] ringStarts = new int[16];
+	private int ringCount;
+
+	/**
+	 * Parses the specified draw instructions with a parser that is reused by the
+	 * current thread.
+	 *
+	 * @param instructions are the draw instructions.
+	 * @return the parsed shapes.
+	 */
+	static Shapes parse(CharSequence instructions) {
+		return PARSERS.get().parseShapes(instructions);
+	}
+
+	/**
+	 * Parses the specified draw instructions.
+	 *
+	 * @param instructions are the draw instructions.
+	 * @return the parsed shapes.
+	 */
+	Shapes parseShapes(CharSequence instructions) {
+		in = instructions;
+		pos = 0;
+		coordCount = 0;
+		ringCount = 0;
+
+		char command = 'L';
+		double penX = 0, penY = 0; // current point
+		double startX = 0, startY = 0; // start of the current shape
+
+		while (skipWhitespace()) {
+			char ch = in.charAt(pos);
+
+			if (isCommand(ch) && isWordEnd(pos + 1)) {
+				pos++;
+
+				if (ch == 'z' || ch == 'Z') {
+					addVertex(penX, penY);
+					penX = startX;
+					penY = startY;
+				} else {
+					command = ch;
+				}
+				continue;
+			}
+
+			int wordStart = pos;
+			double x = parseNumber();
+			boolean isPair = !Double.isNaN(x) && pos < in.length() && in.charAt(pos) == ',';
+			double y = Double.NaN;
+			if (isPair) {
+				pos++;
+				y = parseNumber();
+			}
+
+			if (!isWordEnd(pos) || Double.isNaN(x) || (isPair && Double.isNaN(y))
+					|| (isPair == (command == 'H' || command == 'h' || command == 'V' || command == 'v'))) {
+				// not a coordinate this parser understands, skip the whole word
+				pos = wordStart;
+				while (pos < in.length() && !Character.isWhitespace(in.charAt(pos)))
+					pos++;
+				continue;
+			}
+
+			boolean relative = Character.isLowerCase(command);
+			switch (Character.toUpperCase(command)) {
+			case 'M':
+				if (ringCount == 0 || coordCount > ringStarts[ringCount - 1])
+					startRing();
+
+				penX = relative ? penX + x : x;
+				penY = relative ? penY + y : y;
+				startX = penX;
+				startY = penY;
+				command = relative ? 'l' : 'L';
+				break;
+			case 'H':
+				addVertex(penX, penY);
+				penX = relative ? penX + x : x;
+				break;
+			case 'V':
+				addVertex(penX, penY);
+				penY = relative ? penY + x : x;
+				break;
+			default: // L
+				addVertex(penX, penY);
+				penX = relative ? penX + x : x;
+				penY = relative ? penY + y : y;
+				break;
+			}
+		}
+
+		in = null;
+
+		Shapes shapes = new Shapes();
+		shapes.coordinates = Arrays.copyOf(coords, coordCount);
+
+		// empty rings are dropped
+		int[] starts = new int[ringCount + 1];
+		int rings = 0;
+		for (int r = 0; r < ringCount; r++) {
+			int end = r + 1 < ringCount ? ringStarts[r + 1] : coordCount;
+			if (end > ringStarts[r])
+				starts[rings++] = ringStarts[r];
+		}
+		starts[rings] = coordCount;
+		shapes.ringOffsets = Arrays.copyOf(starts, rings + 1);
+
+		return shapes;
+	}
+
+	/**
+	 * Starts a new ring at the current end of the coordinates.
+	 */
+	private void startRing() {
+		if (ringCount == ringStarts.length)
+			ringStarts = Arrays.copyOf(ringStarts, ringCount * 2);
+		ringStarts[ringCount++] = coordCount;
+	}
+
+	/**
+	 * Appends a vertex to the current ring.
+	 *
+	 * @param x is the x coordinate of the vertex.
+	 * @param y is the y coordinate of the vertex.
+	 */
+	private void addVertex(double x, double y) {
+		if (ringCount == 0)
+			startRing();
+		if (coordCount + 2 > coords.length)
+			coords = Arrays.copyOf(coords, coords.length * 2);
+		coords[coordCount++] = x;
+		coords[coordCount++] = y;
+	}
+
+	/**
+	 * Advances the position to the next non whitespace character.
+	 *
+	 * @return false if the end of the instructions was reached.
+	 */
+	private boolean skipWhitespace() {
+		while (pos < in.length() && Character.isWhitespace(in.charAt(pos)))
+			pos++;
+		return pos < in.length();
+	}
+
+	/**
+	 * Checks whether a word ends at the specified position.
+	 *
+	 * @param i is the position after the last character of the word.
+	 * @return true if i is the end of the instructions or a whitespace.
+	 */
+	private boolean isWordEnd(int i) {
+		return i >= in.length() || Character.isWhitespace(in.charAt(i));
+	}
+
+	/**
+	 * Checks whether the character is a supported path command.
+	 *
+	 * @param ch is the character to check.
+	 * @return true for M, L, H, V and Z in either case.
+	 */
+	private static boolean isCommand(char ch) {
+		switch (Character.toUpperCase(ch)) {
+		case 'M':
+		case 'L':
+		case 'H':
+		case 'V':
+		case 'Z':
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Parses a decimal number starting at the current position and advances the
+	 * position past it. Numbers with up to 18 significant digits and 22 decimal
+	 * places are computed exactly as a single division of two exactly
+	 * representable doubles, which yields the same result as
+	 * {@link Double#parseDouble(String)}. Anything else falls back to it.
+	 *
+	 * @return the parsed number or NaN if there is no number at the current
+	 *         position.
+	 */
+	private double parseNumber() {
+		int start = pos;
+		boolean negative = false;
+		if (pos < in.length() && (in.charAt(pos) == '-' || in.charAt(pos) == '+'))
+			negative = in.charAt(pos++) == '-';
+
+		long mantissa = 0;
+		int digits = 0;
+		int decimals = 0;
+		boolean point = false;
+		boolean exact = true;
+
+		for (; pos < in.length(); pos++) {
+			char ch = in.charAt(pos);
+
+			if (ch >= '0' && ch <= '9') {
+				if (mantissa == 0 && ch == '0' && !point)
+					continue; // leading zero
+				if (++digits > 18) {
+					exact = false;
+					continue;
+				}
+				mantissa = mantissa * 10 + (ch - '0');
+				if (point)
+					decimals++;
+			} else if (ch == '.' && !point) {
+				point = true;
+			} else if (ch == 'e' || ch == 'E') {
+				exact = false;
+				pos++;
+				if (pos < in.length() && (in.charAt(pos) == '-' || in.charAt(pos) == '+'))
+					pos++;
+				while (pos < in.length() && in.charAt(pos) >= '0' && in.charAt(pos) <= '9')
+					pos++;
+				break;
+			} else {
+				break;
+			}
+		}
+
+		int length = pos - start - (negative || in.charAt(start) == '+' ? 1 : 0) - (point ? 1 : 0);
+		if (length <= 0)
+			return Double.NaN; // no digits
+
+		if (!exact || mantissa > (1L << 53) || decimals >= POWERS_OF_TEN.length) {
+			try {
+				return Double.parseDouble(in.subSequence(start, pos).toString());
+			} catch (NumberFormatException e) {
+				return Double.NaN;
+			}
+		}
+
+		double d = mantissa / POWERS_OF_TEN[decimals];
+		return negative ? -d : d;
+	}
+
+	/**
+	 * This class holds the result of parsing draw instructions: the coordinates
+	 * of all rings packed into one array and the offsets at which each ring
+	 * starts.
+	 *
+	 * @author Niklas S.
+	 *
+	 */
+	static class Shapes {
+
+		/**
+		 * The coordinates of all vertices stored as x, y pairs.
+		 */
+		double[] coordinates;
+		/**
+		 * The index into coordinates at which each ring starts. The last entry is the
+		 * length of coordinates so ring r spans from ringOffsets[r] to
+		 * ringOffsets[r + 1].
+		 */
+		int[] ringOffsets;
+
+		/**
+		 * Getter for the number of rings.
+		 *
+		 * @return the number of rings.
+		 */
+		int ringCount() {
+			return ringOffsets.length - 1;
+		}
+
+		/**
+		 * Computes the bounding box of every ring.
+		 *
+		 * @return the bounding boxes stored as minX, minY, maxX, maxY for each ring.
+		 */
+		double[] bounds() {
+			double[] bounds = new double[ringCount() * 4];
+			for (int r = 0; r < ringCount(); r++) {
+				bounds[r * 4] = bounds[r * 4 + 1] = Double.MAX_VALUE;
+				bounds[r * 4 + 2] = bounds[r * 4 + 3] = -Double.MAX_VALUE;
+
+				for (int i = ringOffsets[r]; i < ringOffsets[r + 1]; i += 2) {
+					bounds[r * 4] = Math.min(bounds[r * 4], coordinates[i]);
+					bounds[r * 4 + 1] = Math.min(bounds[r * 4 + 1], coordinates[i + 1]);
+					bounds[r * 4 + 2] = Math.max(bounds[r * 4 + 2], coordinates[i]);
+					bounds[r * 4 + 3] = Math.max(bounds[r * 4 + 3], coordinates[i + 1]);
+				}
+			}
+			return bounds;
+		}
+	}
+}
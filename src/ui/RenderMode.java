@@ -0,0 +1,26 @@
+package ui;
+
+/**
+ * This enum lists the ways a map can be drawn.
+ *
+ * @author Niklas S.
+ *
+ */
+public enum RenderMode {
+
+	/**
+	 * Every vertex is projected to whole screenspace pixels and the countries are
+	 * drawn as Polygons. The projected shapes are cached for the most recent views
+	 * so repeated frames of an unchanged view are cheap, but every pan or zoom
+	 * projects all visible vertices again.
+	 */
+	PROJECTED,
+
+	/**
+	 * The countries are drawn as Path2Ds in mapspace that are built once and drawn
+	 * under the transform of the view. Panning and zooming do no geometry work at
+	 * all, coordinates keep their sub-pixel precision and line widths are scaled
+	 * with the zoom so outlines keep their width on screen.
+	 */
+	TRANSFORMED
+}
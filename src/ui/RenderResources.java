@@ -0,0 +1,100 @@
+package ui;
+
+import java.awt.BasicStroke;
+import java.awt.Font;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class holds the fonts and strokes used to draw a map so they are not
+ * created anew for every frame. Creating a font involves a lookup in the font
+ * manager, and strokes are immutable, so both are created once and reused.
+ * <p>
+ * Fonts are cached per size. The sizes needed depend on the size of the
+ * viewport, so the cache is meant to be invalidated whenever the viewport is
+ * resized to keep fonts of outdated sizes from piling up. The resources can be
+ * used from multiple threads.
+ *
+ * @author Niklas S.
+ *
+ */
+class RenderResources {
+
+	/**
+	 * The stroke the outlines of the countries are drawn with.
+	 */
+	static final BasicStroke OUTLINE_STROKE = new BasicStroke(1.5f);
+	/**
+	 * The dashed stroke the sea lines connecting countries are drawn with.
+	 */
+	static final BasicStroke SEA_LINE_STROKE = new BasicStroke(1.0f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER,
+			10.0f, new float[] { 10f }, 0.0f);
+
+	/**
+	 * The size of the label font relative to the width of the viewport.
+	 */
+	static final double LABEL_FONT_SCALE = .03;
+
+	private final String fontName;
+	private final int fontStyle;
+
+	private final ConcurrentHashMap<Integer, Font> fonts = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor for the resources of the default label font, bold Arial.
+	 */
+	RenderResources() {
+		this("Arial", Font.BOLD);
+	}
+
+	/**
+	 * Constructor for resources using the specified label font.
+	 *
+	 * @param fontName  is the name of the label font.
+	 * @param fontStyle is the style of the label font, e.g. {@link Font#BOLD}.
+	 */
+	RenderResources(String fontName, int fontStyle) {
+		this.fontName = fontName;
+		this.fontStyle = fontStyle;
+	}
+
+	/**
+	 * Getter for the label font at a size.
+	 *
+	 * @param size is the point size of the font.
+	 * @return the font, created only the first time the size is requested since
+	 *         the last invalidation.
+	 */
+	Font getFont(int size) {
+		return fonts.computeIfAbsent(size, s -> new Font(fontName, fontStyle, s));
+	}
+
+	/**
+	 * Getter for the label font matching the width of the viewport.
+	 *
+	 * @param viewportWidth is the width of the viewport in pixels.
+	 * @return the font.
+	 */
+	Font getLabelFont(int viewportWidth) {
+		return getFont((int) (LABEL_FONT_SCALE * viewportWidth));
+	}
+
+	/**
+	 * Creates the outline stroke in mapspace, for drawing outlines under a
+	 * transform from mapspace to screenspace so they keep their width on screen.
+	 * Callers create it once per frame, the width depends on the zoom of the view
+	 * drawn.
+	 *
+	 * @param zoom is the zoom of the transform in mapspace units per pixel.
+	 * @return the stroke.
+	 */
+	static BasicStroke createOutlineStroke(double zoom) {
+		return new BasicStroke((float) (OUTLINE_STROKE.getLineWidth() * zoom));
+	}
+
+	/**
+	 * Drops all cached fonts. Should be called when the viewport is resized.
+	 */
+	void invalidate() {
+		fonts.clear();
+	}
+}
@@ -0,0 +1,121 @@
+package ui;
+
+import java.awt.Rectangle;
+
+import javax.swing.JComponent;
+import javax.swing.Timer;
+
+/**
+ * This class coalesces repaint requests of a component into at most one repaint
+ * per frame. Mouse input can arrive hundreds of times per second, each event
+ * changing the view slightly; instead of repainting for every event, requests
+ * are collected and the component is repainted once when the next frame is
+ * due.
+ * <p>
+ * Requests for parts of the component are merged into one dirty region. A
+ * request for the whole component overrides all regions requested in the same
+ * frame. The scheduler must only be used from the event dispatch thread.
+ *
+ * @author Niklas S.
+ *
+ */
+class RepaintScheduler {
+
+	private final JComponent component;
+	private final Timer timer;
+
+	private int maxFps;
+	private long frameInterval; // nanoseconds
+	private long lastRepaint; // System.nanoTime of the last repaint
+
+	private boolean pending;
+	private Rectangle dirty; // null if the whole component is to be repainted
+
+	/**
+	 * Constructor creating a scheduler for a component.
+	 *
+	 * @param component is the component to be repainted.
+	 * @param maxFps    is the maximum number of repaints per second.
+	 */
+	RepaintScheduler(JComponent component, int maxFps) {
+		this.component = component;
+
+		timer = new Timer(0, e -> repaintNow());
+		timer.setRepeats(false);
+		setMaxFps(maxFps);
+	}
+
+	/**
+	 * Setter for the maximum number of repaints per second.
+	 *
+	 * @param maxFps is the new frame rate cap. Should maxFps be less than 1 it
+	 *               will be set to 1.
+	 */
+	void setMaxFps(int maxFps) {
+		this.maxFps = Math.max(1, maxFps);
+		frameInterval = 1_000_000_000L / this.maxFps;
+	}
+
+	/**
+	 * Getter for the maximum number of repaints per second.
+	 *
+	 * @return the frame rate cap.
+	 */
+	int getMaxFps() {
+		return maxFps;
+	}
+
+	/**
+	 * Requests a repaint of the whole component with the next frame.
+	 */
+	void requestRepaint() {
+		pending = true;
+		dirty = null;
+		schedule();
+	}
+
+	/**
+	 * Requests a repaint of part of the component with the next frame.
+	 *
+	 * @param region is the region of the component that changed.
+	 */
+	void requestRepaint(Rectangle region) {
+		if (!pending)
+			dirty = new Rectangle(region);
+		else if (dirty != null)
+			dirty.add(region);
+
+		pending = true;
+		schedule();
+	}
+
+	/**
+	 * Starts the timer for the next frame unless it is already running.
+	 */
+	private void schedule() {
+		if (timer.isRunning())
+			return;
+
+		// the timer counts whole milliseconds, rounding up keeps the frame rate below the cap
+		long remaining = frameInterval - (System.nanoTime() - lastRepaint);
+		timer.setInitialDelay((int) Math.max(0, (remaining + 999_999) / 1_000_000));
+		timer.start();
+	}
+
+	/**
+	 * Repaints the requested region of the component.
+	 */
+	private void repaintNow() {
+		if (!pending)
+			return;
+
+		if (dirty == null)
+			component.repaint();
+		else
+			component.repaint(dirty);
+
+		pending = false;
+		dirty = null;
+		lastRepaint = System.nanoTime();
+	}
+}
@@ -0,0 +1,282 @@
+package ui;
+
+import java.util.Arrays;
+import java.util.List;
+
+import ui.Map.Country;
+
+/**
+ * This class computes simplified versions of the shapes of all countries of a
+ * map for drawing them at lower zoom levels. Shapes are simplified with the
+ * Douglas-Peucker algorithm at several tolerances, one per level of detail.
+ * Level 0 is the original geometry.
+ * <p>
+ * Borders shared by two countries are simplified the same way for both of
+ * them: vertices where a shared border begins or ends are never removed, and
+ * the simplification of a stretch only depends on the vertices in it, not on
+ * the direction the country traverses it. This way no gaps or overlaps open up
+ * between neighbouring countries.
+ *
+ * @author Niklas S.
+ *
+ */
+class Simplifier {
+
+	/**
+	 * The tolerance in mapspace of each level of detail. A vertex is removed when
+	 * it is closer than the tolerance to the simplified outline.
+	 */
+	static final double[] TOLERANCES = { 0, .25, .5, 1, 2, 4, 8 };
+
+	/**
+	 * Distance on each axis below which vertices of different countries are
+	 * considered to be the same vertex of a shared border.
+	 */
+	static final double SHARED_TOLERANCE = .01;
+
+	private static final int[] NO_NEIGHBOURS = new int[0];
+
+	private final boolean[][] anchors; // per country and vertex: whether the vertex is never removed
+
+	/**
+	 * Constructor finding the vertices shared between the specified countries and
+	 * the vertices where shared borders begin or end.
+	 *
+	 * @param countries are all countries of the map, indexed by their numId.
+	 */
+	Simplifier(List<Country> countries) {
+		VertexGrid grid = new VertexGrid(SHARED_TOLERANCE);
+		int[] firstVertex = new int[countries.size() + 1];
+		for (Country c : countries) {
+			double[] coords = c.getCoordinates();
+			for (int i = 0; i < coords.length; i += 2)
+				grid.add(c.getNumId(), coords[i], coords[i + 1]);
+			firstVertex[c.getNumId() + 1] = firstVertex[c.getNumId()] + coords.length / 2;
+		}
+
+		// sorted numIds of the other countries at every vertex
+		int[][] neighbours = new int[firstVertex[countries.size()]][];
+		int[][] found = { new int[8] };
+		int[] foundCount = new int[1];
+		for (Country c : countries) {
+			double[] coords = c.getCoordinates();
+			for (int i = 0; i < coords.length; i += 2) {
+				foundCount[0] = 0;
+				grid.forEachNear(c.getNumId(), coords[i], coords[i + 1], owner -> {
+					for (int k = 0; k < foundCount[0]; k++)
+						if (found[0][k] == owner)
+							return;
+					if (foundCount[0] == found[0].length)
+						found[0] = Arrays.copyOf(found[0], foundCount[0] * 2);
+					found[0][foundCount[0]++] = owner;
+				});
+				neighbours[firstVertex[c.getNumId()] + i / 2] = neighbourSet(found[0], foundCount[0]);
+			}
+		}
+
+		// vertices where the countries on the other side change split the rings into
+		// stretches that are either coast or a border with the same neighbours
+		boolean[] isAnchor = new boolean[neighbours.length];
+		for (Country c : countries) {
+			int[] rings = c.getRingOffsets();
+			for (int r = 0; r + 1 < rings.length; r++) {
+				int first = firstVertex[c.getNumId()] + rings[r] / 2;
+				int last = firstVertex[c.getNumId()] + rings[r + 1] / 2 - 1;
+				for (int v = first; v <= last; v++)
+					isAnchor[v] = v == first || v == last || !Arrays.equals(neighbours[v], neighbours[v - 1])
+							|| !Arrays.equals(neighbours[v], neighbours[v + 1]);
+			}
+		}
+
+		// a vertex splitting the border of one country splits it for the countries
+		// sharing that vertex as well, even if they lack the vertices causing it
+		anchors = new boolean[countries.size()][];
+		for (Country c : countries) {
+			double[] coords = c.getCoordinates();
+			boolean[] countryAnchors = new boolean[coords.length / 2];
+			for (int i = 0; i < coords.length; i += 2) {
+				int vertex = i / 2;
+				countryAnchors[vertex] = isAnchor[firstVertex[c.getNumId()] + vertex];
+				if (!countryAnchors[vertex])
+					grid.forEachVertexNear(c.getNumId(), coords[i], coords[i + 1], v -> {
+						if (isAnchor[v])
+							countryAnchors[vertex] = true;
+					});
+			}
+			anchors[c.getNumId()] = countryAnchors;
+		}
+	}
+
+	/**
+	 * Creates the set of countries found at a vertex.
+	 *
+	 * @param found are the distinct numIds of the countries.
+	 * @param count is the number of numIds in found.
+	 * @return the numIds in ascending order. All vertices without other countries
+	 *         share one empty array.
+	 */
+	private static int[] neighbourSet(int[] found, int count) {
+		if (count == 0)
+			return NO_NEIGHBOURS;
+
+		int[] set = Arrays.copyOf(found, count);
+		Arrays.sort(set);
+		return set;
+	}
+
+	/**
+	 * Getter for the level of detail to draw a map at.
+	 *
+	 * @param zoom is the zoom of the view, the mapspace length of one pixel.
+	 * @return the coarsest level whose tolerance stays below half a pixel.
+	 */
+	static int level(double zoom) {
+		int level = 0;
+		while (level + 1 < TOLERANCES.length && TOLERANCES[level + 1] <= zoom / 2)
+			level++;
+		return level;
+	}
+
+	/**
+	 * Simplifies all shapes of a country.
+	 *
+	 * @param c     is the country to simplify.
+	 * @param level is the level of detail, an index into {@link #TOLERANCES}.
+	 * @return the simplified shapes. Shapes keep their index even if they
+	 *         collapse to fewer than three vertices.
+	 */
+	PathParser.Shapes simplify(Country c, int level) {
+		double[] coords = c.getCoordinates();
+		int[] rings = c.getRingOffsets();
+		boolean[] isAnchor = anchors[c.getNumId()];
+		double tolerance = TOLERANCES[level];
+
+		boolean[] keep = new boolean[coords.length / 2];
+		int[] stack = new int[64];
+
+		for (int r = 0; r + 1 < rings.length; r++) {
+			int anchor = rings[r] / 2;
+			for (int v = anchor; v < rings[r + 1] / 2; v++) {
+				if (!isAnchor[v])
+					continue;
+
+				keep[v] = true;
+				stack = simplify(coords, anchor, v, tolerance, keep, stack);
+				anchor = v;
+			}
+		}
+
+		PathParser.Shapes shapes = new PathParser.Shapes();
+		shapes.ringOffsets = new int[rings.length];
+		int count = 0;
+		for (boolean k : keep)
+			if (k)
+				count++;
+
+		shapes.coordinates = new double[count * 2];
+		int out = 0;
+		for (int r = 0; r + 1 < rings.length; r++) {
+			shapes.ringOffsets[r] = out;
+			for (int v = rings[r] / 2; v < rings[r + 1] / 2; v++)
+				if (keep[v]) {
+					shapes.coordinates[out++] = coords[v * 2];
+					shapes.coordinates[out++] = coords[v * 2 + 1];
+				}
+		}
+		shapes.ringOffsets[rings.length - 1] = out;
+
+		return shapes;
+	}
+
+	/**
+	 * Douglas-Peucker simplification of the vertices between two kept vertices.
+	 * Ties between equally distant vertices are broken by their coordinates so
+	 * the same vertices are kept no matter in which direction the stretch is
+	 * traversed.
+	 *
+	 * @param coords    are the packed coordinates.
+	 * @param from      is the vertex index of the start of the stretch.
+	 * @param to        is the vertex index of the end of the stretch.
+	 * @param tolerance is the distance below which vertices are removed.
+	 * @param keep      receives true for every vertex to be kept.
+	 * @param stack     is a work array that may be grown.
+	 * @return the work array.
+	 */
+	private static int[] simplify(double[] coords, int from, int to, double tolerance, boolean[] keep, int[] stack) {
+		int top = 0;
+		stack[top++] = from;
+		stack[top++] = to;
+
+		while (top > 0) {
+			int b = stack[--top];
+			int a = stack[--top];
+			if (b - a < 2)
+				continue;
+
+			double ax = coords[a * 2], ay = coords[a * 2 + 1];
+			double bx = coords[b * 2], by = coords[b * 2 + 1];
+
+			int farthest = -1;
+			double maxDistance = -1;
+			for (int v = a + 1; v < b; v++) {
+				double distance = segmentDistanceSq(coords[v * 2], coords[v * 2 + 1], ax, ay, bx, by);
+				if (distance > maxDistance || (distance == maxDistance && before(coords, v, farthest))) {
+					maxDistance = distance;
+					farthest = v;
+				}
+			}
+
+			if (tolerance > 0 && maxDistance < tolerance * tolerance)
+				continue;
+
+			keep[farthest] = true;
+			if (top + 4 > stack.length)
+				stack = Arrays.copyOf(stack, stack.length * 2);
+			stack[top++] = a;
+			stack[top++] = farthest;
+			stack[top++] = farthest;
+			stack[top++] = b;
+		}
+
+		return stack;
+	}
+
+	/**
+	 * Checks whether vertex v comes before vertex w when ordered by x and then by
+	 * y coordinate.
+	 *
+	 * @param coords are the packed coordinates.
+	 * @param v      is the index of the first vertex.
+	 * @param w      is the index of the second vertex.
+	 * @return true if v comes first.
+	 */
+	private static boolean before(double[] coords, int v, int w) {
+		if (coords[v * 2] != coords[w * 2])
+			return coords[v * 2] < coords[w * 2];
+		return coords[v * 2 + 1] < coords[w * 2 + 1];
+	}
+
+	/**
+	 * Computes the squared distance between a point and a line segment.
+	 *
+	 * @param px is the x coordinate of the point.
+	 * @param py is the y coordinate of the point.
+	 * @param ax is the x coordinate of the start of the segment.
+	 * @param ay is the y coordinate of the start of the segment.
+	 * @param bx is the x coordinate of the end of the segment.
+	 * @param by is the y coordinate of the end of the segment.
+	 * @return the squared distance.
+	 */
+	private static double segmentDistanceSq(double px, double py, double ax, double ay, double bx, double by) {
+		double dx = bx - ax;
+		double dy = by - ay;
+		double lengthSq = dx * dx + dy * dy;
+
+		double t = lengthSq == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSq;
+		t = Math.max(0, Math.min(1, t));
+
+		double x = ax + t * dx - px;
+		double y = ay + t * dy - py;
+		return x * x + y * y;
+	}
+}
@@ -0,0 +1,182 @@
+package ui;
+
+import java.util.List;
+
+import ui.Map.Country;
+
+/**
+ * This class is a uniform grid over mapspace used to quickly find the country
+ * at a given mapspace coordinate. Every shape of every country is registered in
+ * all grid cells its bounding box overlaps, so a lookup only has to test the
+ * few shapes stored in a single cell.
+ * <p>
+ * An index is built for one level of detail of the shapes and does not
+ * allocate any objects while being queried.
+ *
+ * @author Niklas S.
+ *
+ */
+class SpatialIndex {
+
+	private final Country[] owners; // country of each shape
+	private final double[][] coords; // packed coordinates of the country of each shape
+	private final int[] starts; // index of the first coordinate of each shape
+	private final int[] ends; // index after the last coordinate of each shape
+	private final double[] bounds; // minX, minY, maxX, maxY of each shape
+
+	private final double originX;
+	private final double originY;
+	private final double cellWidth;
+	private final double cellHeight;
+	private final int columns;
+	private final int rows;
+
+	private final int[] cellStart; // index into cellItems for each cell, one extra entry at the end
+	private final int[] cellItems; // shape indices ordered by country and shape
+
+	/**
+	 * Constructor building the index over all shapes of the specified countries.
+	 *
+	 * @param countries are the countries to be indexed. Should multiple countries
+	 *                  contain the same coordinate the one listed first will be
+	 *                  returned by lookups.
+	 * @param width     is the width of the map in mapspace.
+	 * @param height    is the height of the map in mapspace.
+	 * @param level     is the level of detail of the shapes to be indexed.
+	 */
+	SpatialIndex(List<Country> countries, double width, double height, int level) {
+		int shapeCount = 0;
+		for (Country c : countries) {
+			int[] ringOffsets = c.getShapes(level).ringOffsets;
+			for (int s = 0; s < c.getShapeCount(); s++)
+				if (ringOffsets[s + 1] - ringOffsets[s] >= 6)
+					shapeCount++;
+		}
+
+		owners = new Country[shapeCount];
+		coords = new double[shapeCount][];
+		starts = new int[shapeCount];
+		ends = new int[shapeCount];
+		bounds = new double[shapeCount * 4];
+
+		double minX = 0, minY = 0, maxX = width, maxY = height;
+		int index = 0;
+		for (Country c : countries) {
+			PathParser.Shapes shapes = c.getShapes(level);
+			double[] shapeBounds = level == 0 ? c.getShapeBounds() : shapes.bounds();
+
+			for (int s = 0; s < c.getShapeCount(); s++) {
+				if (shapes.ringOffsets[s + 1] - shapes.ringOffsets[s] < 6)
+					continue; // less than three vertices
+
+				owners[index] = c;
+				coords[index] = shapes.coordinates;
+				starts[index] = shapes.ringOffsets[s];
+				ends[index] = shapes.ringOffsets[s + 1];
+				System.arraycopy(shapeBounds, s * 4, bounds, index * 4, 4);
+
+				minX = Math.min(minX, bounds[index * 4]);
+				minY = Math.min(minY, bounds[index * 4 + 1]);
+				maxX = Math.max(maxX, bounds[index * 4 + 2]);
+				maxY = Math.max(maxY, bounds[index * 4 + 3]);
+				index++;
+			}
+		}
+
+		// roughly two cells per shape in each direction keeps cells small but sparse
+		int cells = Math.max(1, (int) Math.ceil(Math.sqrt(owners.length)) * 2);
+		originX = minX;
+		originY = minY;
+		columns = cells;
+		rows = cells;
+		cellWidth = Math.max((maxX - minX) / columns, Double.MIN_NORMAL);
+		cellHeight = Math.max((maxY - minY) / rows, Double.MIN_NORMAL);
+
+		// counting shapes per cell first so the items can be stored in one array
+		cellStart = new int[columns * rows + 1];
+		for (int s = 0; s < owners.length; s++)
+			for (int row = row(bounds[s * 4 + 1]); row <= row(bounds[s * 4 + 3]); row++)
+				for (int col = column(bounds[s * 4]); col <= column(bounds[s * 4 + 2]); col++)
+					cellStart[row * columns + col + 1]++;
+
+		for (int i = 1; i < cellStart.length; i++)
+			cellStart[i] += cellStart[i - 1];
+
+		cellItems = new int[cellStart[cellStart.length - 1]];
+		int[] fill = new int[columns * rows];
+		for (int s = 0; s < owners.length; s++)
+			for (int row = row(bounds[s * 4 + 1]); row <= row(bounds[s * 4 + 3]); row++)
+				for (int col = column(bounds[s * 4]); col <= column(bounds[s * 4 + 2]); col++) {
+					int cell = row * columns + col;
+					cellItems[cellStart[cell] + fill[cell]++] = s;
+				}
+	}
+
+	/**
+	 * Looks up the country containing the specified mapspace coordinates.
+	 *
+	 * @param x is the x coordinate in mapspace.
+	 * @param y is the y coordinate in mapspace.
+	 * @return the first country containing the coordinates. Should no country
+	 *         contain the coordinates null will be returned.
+	 */
+	Country lookup(double x, double y) {
+		if (x < originX || y < originY || x > originX + cellWidth * columns || y > originY + cellHeight * rows)
+			return null;
+
+		int cell = row(y) * columns + column(x);
+		for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+			int s = cellItems[i];
+
+			if (x < bounds[s * 4] || y < bounds[s * 4 + 1] || x > bounds[s * 4 + 2] || y > bounds[s * 4 + 3])
+				continue;
+
+			if (contains(coords[s], starts[s], ends[s], x, y))
+				return owners[s];
+		}
+
+		return null;
+	}
+
+	/**
+	 * Getter for the column of the cell containing the x coordinate.
+	 *
+	 * @param x is the x coordinate in mapspace.
+	 * @return the column clamped to the grid.
+	 */
+	private int column(double x) {
+		return Math.min(columns - 1, Math.max(0, (int) ((x - originX) / cellWidth)));
+	}
+
+	/**
+	 * Getter for the row of the cell containing the y coordinate.
+	 *
+	 * @param y is the y coordinate in mapspace.
+	 * @return the row clamped to the grid.
+	 */
+	private int row(double y) {
+		return Math.min(rows - 1, Math.max(0, (int) ((y - originY) / cellHeight)));
+	}
+
+	/**
+	 * Point in polygon test using the even-odd rule, the same rule
+	 * {@link java.awt.Polygon} uses.
+	 *
+	 * @param coords are the packed x, y coordinates containing the polygon.
+	 * @param start  is the index of the first coordinate of the polygon.
+	 * @param end    is the index after the last coordinate of the polygon.
+	 * @param x      is the x coordinate of the point to test.
+	 * @param y      is the y coordinate of the point to test.
+	 * @return true if the point lies inside the polygon.
+	 */
+	static boolean contains(double[] coords, int start, int end, double x, double y) {
+		boolean inside = false;
+
+		for (int i = start, j = end - 2; i < end; j = i, i += 2)
+			if ((coords[i + 1] > y) != (coords[j + 1] > y)
+					&& x < (coords[j] - coords[i]) * (y - coords[i + 1]) / (coords[j + 1] - coords[i + 1]) + coords[i])
+				inside = !inside;
+
+		return inside;
+	}
+}
@@ -0,0 +1,132 @@
+package ui;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.IntConsumer;
+
+/**
+ * This class snaps vertices into hash buckets the size of a tolerance so that
+ * all vertices closer than the tolerance to a coordinate can be found by only
+ * looking at the bucket of the coordinate and its eight neighbouring buckets.
+ * Every vertex belongs to an owner (e.g. the numeric id of a country).
+ *
+ * @author Niklas S.
+ *
+ */
+class VertexGrid {
+
+	private final double tolerance;
+
+	private final HashMap<Long, Integer> cells; // cell key -> most recently added vertex in that cell
+
+	private int size;
+	private int[] next; // next vertex in the same cell or -1
+	private int[] owners;
+	private double[] xs;
+	private double[] ys;
+
+	/**
+	 * Constructor creating an empty grid.
+	 *
+	 * @param tolerance is the distance on each axis below which two vertices are
+	 *                  considered to be at the same spot.
+	 */
+	VertexGrid(double tolerance) {
+		this.tolerance = tolerance;
+
+		cells = new HashMap<>();
+		next = new int[1024];
+		owners = new int[1024];
+		xs = new double[1024];
+		ys = new double[1024];
+	}
+
+	/**
+	 * Adds a vertex to the grid.
+	 *
+	 * @param owner is the owner of the vertex.
+	 * @param x     is the x coordinate of the vertex.
+	 * @param y     is the y coordinate of the vertex.
+	 */
+	void add(int owner, double x, double y) {
+		if (size == next.length) {
+			next = Arrays.copyOf(next, size * 2);
+			owners = Arrays.copyOf(owners, size * 2);
+			xs = Arrays.copyOf(xs, size * 2);
+			ys = Arrays.copyOf(ys, size * 2);
+		}
+
+		Long key = key(cell(x), cell(y));
+		Integer head = cells.get(key);
+
+		next[size] = head == null ? -1 : head;
+		owners[size] = owner;
+		xs[size] = x;
+		ys[size] = y;
+		cells.put(key, size);
+		size++;
+	}
+
+	/**
+	 * Calls the consumer with the owner of every vertex that is closer than the
+	 * tolerance on both axes to the specified coordinates and not owned by the
+	 * specified owner. An owner is passed once per matching vertex and may
+	 * therefore be passed multiple times.
+	 *
+	 * @param owner    is the owner whose vertices are to be skipped.
+	 * @param x        is the x coordinate.
+	 * @param y        is the y coordinate.
+	 * @param consumer is the consumer that receives the owners.
+	 */
+	void forEachNear(int owner, double x, double y, IntConsumer consumer) {
+		forEachVertexNear(owner, x, y, v -> consumer.accept(owners[v]));
+	}
+
+	/**
+	 * Calls the consumer with every vertex that is closer than the tolerance on
+	 * both axes to the specified coordinates and not owned by the specified
+	 * owner. Vertices are identified by the order they were added in, starting at
+	 * 0.
+	 *
+	 * @param owner    is the owner whose vertices are to be skipped.
+	 * @param x        is the x coordinate.
+	 * @param y        is the y coordinate.
+	 * @param consumer is the consumer that receives the vertices.
+	 */
+	void forEachVertexNear(int owner, double x, double y, IntConsumer consumer) {
+		long cx = cell(x);
+		long cy = cell(y);
+
+		for (long dx = -1; dx <= 1; dx++)
+			for (long dy = -1; dy <= 1; dy++) {
+				Integer head = cells.get(key(cx + dx, cy + dy));
+				if (head == null)
+					continue;
+
+				for (int v = head; v != -1; v = next[v])
+					if (owners[v] != owner && Math.abs(xs[v] - x) < tolerance && Math.abs(ys[v] - y) < tolerance)
+						consumer.accept(v);
+			}
+	}
+
+	/**
+	 * Getter for the bucket index of a coordinate on one axis.
+	 *
+	 * @param d is the coordinate.
+	 * @return the bucket index.
+	 */
+	private long cell(double d) {
+		return (long) Math.floor(d / tolerance);
+	}
+
+	/**
+	 * Combines the bucket indices of both axes to one key.
+	 *
+	 * @param cx is the bucket index on the x axis.
+	 * @param cy is the bucket index on the y axis.
+	 * @return the key of the bucket.
+	 */
+	private static Long key(long cx, long cy) {
+		return (cx << 32) ^ (cy & 0xffffffffL);
+	}
+}
@@ -0,0 +1,287 @@
+package ui;
+
+import java.awt.geom.AffineTransform;
+
+/**
+ * This class stores ViewSettings of a map viewport: the point of the map in the
+ * center of the viewport, the zoom and the size of the viewport. It is meant to
+ * ease conversion of screenspace coordinates and mapspace coordinates.
+ * <p>
+ * ViewSettings are immutable. Methods changing a value return new ViewSettings
+ * and leave the original ones as they are, so they can be shared between
+ * threads and used as keys of caches.
+ * <p>
+ * A mapspace coordinate x is projected to the screenspace coordinate
+ * (int) ((x - cx) / zoom) + viewportWidth / 2, y likewise. The conversion
+ * methods taking single coordinates and the bulk {@code transform} methods do
+ * not allocate any objects.
+ *
+ * @author Niklas S.
+ *
+ */
+public final class ViewSettings {
+
+	private final double cx;
+	private final double cy;
+	private final double zoom;
+	private final int viewportWidth;
+	private final int viewportHeight;
+
+	/**
+	 * Constructor creating ViewSettings with the specified values.
+	 *
+	 * @param cx             is the x coordinate of the center of the viewport in
+	 *                       mapspace.
+	 * @param cy             is the y coordinate of the center of the viewport in
+	 *                       mapspace.
+	 * @param zoom           is the length in mapspace of one pixel.
+	 * @param viewportWidth  is the width of the viewport in pixels.
+	 * @param viewportHeight is the height of the viewport in pixels.
+	 */
+	public ViewSettings(double cx, double cy, double zoom, int viewportWidth, int viewportHeight) {
+		this.cx = cx;
+		this.cy = cy;
+		this.zoom = zoom;
+		this.viewportWidth = viewportWidth;
+		this.viewportHeight = viewportHeight;
+	}
+
+	/**
+	 * Getter for the x coordinate of the center of the viewport.
+	 *
+	 * @return the x coordinate in mapspace.
+	 */
+	public double getCenterX() {
+		return cx;
+	}
+
+	/**
+	 * Getter for the y coordinate of the center of the viewport.
+	 *
+	 * @return the y coordinate in mapspace.
+	 */
+	public double getCenterY() {
+		return cy;
+	}
+
+	/**
+	 * Getter for the zoom of the viewport. One pixel of screenspace equates to zoom
+	 * units of mapspace.
+	 *
+	 * @return the zoom.
+	 */
+	public double getZoom() {
+		return zoom;
+	}
+
+	/**
+	 * Getter for the width of the viewport in screenspace.
+	 *
+	 * @return the width of the viewport in pixels.
+	 */
+	public int getViewportWidth() {
+		return viewportWidth;
+	}
+
+	/**
+	 * Getter for the height of the viewport in screenspace.
+	 *
+	 * @return the height of the viewport in pixels.
+	 */
+	public int getViewportHeight() {
+		return viewportHeight;
+	}
+
+	/**
+	 * Creates ViewSettings centered on a different point.
+	 *
+	 * @param cx is the new x coordinate of the center in mapspace.
+	 * @param cy is the new y coordinate of the center in mapspace.
+	 * @return the new ViewSettings.
+	 */
+	public ViewSettings withCenter(double cx, double cy) {
+		return new ViewSettings(cx, cy, zoom, viewportWidth, viewportHeight);
+	}
+
+	/**
+	 * Creates ViewSettings with a different zoom.
+	 *
+	 * @param zoom is the new zoom.
+	 * @return the new ViewSettings.
+	 */
+	public ViewSettings withZoom(double zoom) {
+		return new ViewSettings(cx, cy, zoom, viewportWidth, viewportHeight);
+	}
+
+	/**
+	 * Creates ViewSettings with a different viewport size.
+	 *
+	 * @param viewportWidth  is the new width of the viewport in pixels.
+	 * @param viewportHeight is the new height of the viewport in pixels.
+	 * @return the new ViewSettings.
+	 */
+	public ViewSettings withViewportSize(int viewportWidth, int viewportHeight) {
+		return new ViewSettings(cx, cy, zoom, viewportWidth, viewportHeight);
+	}
+
+	/**
+	 * Creates ViewSettings moved by a distance in mapspace, e.g. to draw the copy
+	 * of a map next to the original.
+	 *
+	 * @param dx is the distance to move the center along the x axis.
+	 * @param dy is the distance to move the center along the y axis.
+	 * @return the new ViewSettings.
+	 */
+	public ViewSettings translate(double dx, double dy) {
+		return new ViewSettings(cx + dx, cy + dy, zoom, viewportWidth, viewportHeight);
+	}
+
+	/**
+	 * Converts a mapspace x coordinate to screenspace.
+	 *
+	 * @param x is the x coordinate in mapspace.
+	 * @return the x coordinate in screenspace.
+	 */
+	public int toScreenX(double x) {
+		return (int) ((x - cx) / zoom) + viewportWidth / 2;
+	}
+
+	/**
+	 * Converts a mapspace y coordinate to screenspace.
+	 *
+	 * @param y is the y coordinate in mapspace.
+	 * @return the y coordinate in screenspace.
+	 */
+	public int toScreenY(double y) {
+		return (int) ((y - cy) / zoom) + viewportHeight / 2;
+	}
+
+	/**
+	 * Converts a screenspace x coordinate to mapspace.
+	 *
+	 * @param x is the x coordinate in screenspace.
+	 * @return the x coordinate in mapspace.
+	 */
+	public double toMapX(int x) {
+		return (x - viewportWidth / 2) * zoom + cx;
+	}
+
+	/**
+	 * Converts a screenspace y coordinate to mapspace.
+	 *
+	 * @param y is the y coordinate in screenspace.
+	 * @return the y coordinate in mapspace.
+	 */
+	public double toMapY(int y) {
+		return (y - viewportHeight / 2) * zoom + cy;
+	}
+
+	/**
+	 * This method converts the given mapspace coordinates to screenspace
+	 * coordinates based on the current viewport settings.
+	 *
+	 * @param x is the x coordinate of the mapspace coordinates that are to be
+	 *          converted to screenspace coordinates.
+	 * @param y is the y coordinate of the mapspace coordinates that are to be
+	 *          converted to screenspace coordinates.
+	 * @return an int[] with the coordinates in screenspace that correspond to the
+	 *         specified coordinates in mapspace. The x coordinate will be at the
+	 *         index 0 the y coordinate will be at the index 1.
+	 */
+	public int[] convertToScreenSpace(double x, double y) {
+		return new int[] { toScreenX(x), toScreenY(y) };
+	}
+
+	/**
+	 * This method converts the given screenspace coordinates to mapspace
+	 * coordinates based on the current viewport settings.
+	 *
+	 * @param x is the x coordinate of the screenspace coordinates that are to be
+	 *          converted to mapspace coordinates.
+	 * @param y is the y coordinate of the screenspace coordinates that are to be
+	 *          converted to mapspace coordinates.
+	 * @return a double[] with the coordinates in mapspace that correspond to the
+	 *         specified coordinates in screenspace. The x coordinate will be at the
+	 *         index 0 the y coordinate will be at the index 1.
+	 */
+	public double[] convertToMapSpace(int x, int y) {
+		return new double[] { toMapX(x), toMapY(y) };
+	}
+
+	/**
+	 * Converts packed mapspace coordinates to screenspace.
+	 *
+	 * @param src are the mapspace coordinates stored as x, y pairs.
+	 * @param dst receives the screenspace coordinates stored as x, y pairs. It
+	 *            must be at least as long as src.
+	 */
+	public void transform(double[] src, int[] dst) {
+		int halfWidth = viewportWidth / 2;
+		int halfHeight = viewportHeight / 2;
+
+		for (int i = 0; i + 1 < src.length; i += 2) {
+			dst[i] = (int) ((src[i] - cx) / zoom) + halfWidth;
+			dst[i + 1] = (int) ((src[i + 1] - cy) / zoom) + halfHeight;
+		}
+	}
+
+	/**
+	 * Converts a range of packed mapspace coordinates to screenspace, storing x
+	 * and y coordinates in separate arrays the way {@link java.awt.Polygon} takes
+	 * them.
+	 *
+	 * @param src    are the mapspace coordinates stored as x, y pairs.
+	 * @param offset is the index in src of the x coordinate of the first vertex.
+	 * @param xs     receives the screenspace x coordinates from index 0.
+	 * @param ys     receives the screenspace y coordinates from index 0.
+	 * @param count  is the number of vertices to convert.
+	 */
+	public void transform(double[] src, int offset, int[] xs, int[] ys, int count) {
+		int halfWidth = viewportWidth / 2;
+		int halfHeight = viewportHeight / 2;
+
+		for (int i = 0, j = offset; i < count; i++, j += 2) {
+			xs[i] = (int) ((src[j] - cx) / zoom) + halfWidth;
+			ys[i] = (int) ((src[j + 1] - cy) / zoom) + halfHeight;
+		}
+	}
+
+	/**
+	 * Getter for the transformation from mapspace to screenspace. Unlike the
+	 * conversion methods the transformation does not round to whole pixels.
+	 *
+	 * @return a new AffineTransform projecting mapspace onto the viewport.
+	 */
+	public AffineTransform getTransform() {
+		AffineTransform transform = AffineTransform.getTranslateInstance(viewportWidth / 2, viewportHeight / 2);
+		transform.scale(1 / zoom, 1 / zoom);
+		transform.translate(-cx, -cy);
+		return transform;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof ViewSettings))
+			return false;
+
+		ViewSettings v = (ViewSettings) o;
+		return cx == v.cx && cy == v.cy && zoom == v.zoom && viewportWidth == v.viewportWidth
+				&& viewportHeight == v.viewportHeight;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = Double.hashCode(cx);
+		hash = 31 * hash + Double.hashCode(cy);
+		hash = 31 * hash + Double.hashCode(zoom);
+		hash = 31 * hash + viewportWidth;
+		hash = 31 * hash + viewportHeight;
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return "ViewSettings[cx=" + cx + ", cy=" + cy + ", zoom=" + zoom + ", viewport=" + viewportWidth + "x"
+				+ viewportHeight + "]";
+	}
+}
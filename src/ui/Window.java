@@ -5,10 +5,11 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.Polygon;
+import java.awt.GraphicsConfiguration;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Shape;
+import java.awt.Stroke;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.MouseEvent;
@@ -16,8 +17,14 @@ import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
-import java.util.ArrayList;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.GroupLayout;
 import javax.swing.JFrame;
@@ -42,14 +49,17 @@ public class Window {
 
 	private JFrame frame;
 
+	private Map map;
 	private ViewSettings view;
+	private boolean mapReady; // whether the map is loaded and the view centered on it, EDT only
 
-	private List<ClickListener> clickListeners;
+	private final ListenerRegistry<ClickListener> clickListeners = new ListenerRegistry<>();
+	private ClickDispatcher clickDispatcher = new ClickDispatcher();
 
 	private DrawLabel dl;
 	private ControlLabel cl;
+	private RepaintScheduler repaints;
 
-	private Color bgColor = Color.WHITE;
 	private boolean doHover = true;
 	private Country hoveredCountry = null;
 	private Color fallbackHoverColor = Color.GRAY;
@@ -57,28 +67,52 @@ public class Window {
 
 	private int hoverOffset = 0;
 
+	private volatile long lastFrameTime = -1;
+	private final AtomicBoolean mapChangePending = new AtomicBoolean();
+	private final Runnable mapListener = this::mapChanged; // registered weakly with the map
+
+	private MapRenderer renderer;
+
 	/**
 	 * This constructor creates a new Window. By default it is not visible and needs
 	 * to be set visible with setVisible(true). The title of the Window is empty by
 	 * default. The controlBar is not visible by default.
 	 * <p>
-	 * The map cannot be changed. The starting view will be in the center of the
-	 * map.
+	 * The {@link Map#getDefault() default map} is displayed and cannot be changed.
+	 * The starting view will be in the center of the map.
 	 */
 	public Window() {
-		frame = new JFrame();
-		frame.getContentPane().setBackground(Color.LIGHT_GRAY);
+		this(Map.getDefault());
+	}
 
-		view = new ViewSettings();
+	/**
+	 * This constructor creates a new Window displaying the specified map. By
+	 * default it is not visible and needs to be set visible with setVisible(true).
+	 * The title of the Window is empty by default. The controlBar is not visible by
+	 * default.
+	 * <p>
+	 * The map cannot be changed. The starting view will be in the center of the
+	 * map. Should the map not be loaded yet it is loaded in the background; until
+	 * then the Window shows only its background color.
+	 * 
+	 * @param map is the map to be displayed. Should map be null the default map
+	 *            will be displayed.
+	 */
+	public Window(Map map) {
+		if (map == null)
+			map = Map.getDefault();
+		this.map = map;
+		renderer = new MapRenderer(map);
 
-		view.cx = Map.getWidth() / 2;
-		view.cy = Map.getHeight() / 2;
-		view.zoom = 1.25;
+		frame = new JFrame();
+		frame.getContentPane().setBackground(Color.LIGHT_GRAY);
 
-		clickListeners = new ArrayList<>();
+		// centered once the map is loaded, which happens in the background
+		view = new ViewSettings(0, 0, 1.25, 0, 0);
 
 		dl = new DrawLabel();
 		dl.setMaximumSize(new Dimension(99999999, 99999999));
+		repaints = new RepaintScheduler(dl, 60);
 		cl = new ControlLabel();
 
 		GroupLayout gl = new GroupLayout(frame.getContentPane());
@@ -96,6 +130,9 @@ public class Window {
 		dl.addMouseWheelListener(pm);
 		dl.addComponentListener(pm);
 
+		map.addStateListener(mapListener);
+		map.loadAsync().thenRun(() -> invokeOnEventThread(this::mapLoaded));
+
 		frame.setSize(800, 600);
 		frame.setLocationRelativeTo(null);
 		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -104,14 +141,27 @@ public class Window {
 
 	/**
 	 * This method adds a ClickListener that will be called whenever a ClickEvent on
-	 * the Map occurs.
+	 * the Map occurs. Listeners can be added and removed from any thread, also
+	 * while a click is being handled.
 	 * 
 	 * @param cl is the ClickListener to be added to the list. Should cl be null
 	 *           nothing will happen.
 	 */
 	public void addClickListener(ClickListener cl) {
-		if (cl != null)
-			clickListeners.add(cl);
+		clickListeners.add(cl);
+	}
+
+	/**
+	 * This method adds a ClickListener that is only weakly referenced by the
+	 * Window. It is removed automatically once nothing else references it, e.g.
+	 * when the game session it belongs to is discarded without removing it.
+	 * 
+	 * @param cl is the ClickListener to be added to the list. Should cl be null
+	 *           nothing will happen.
+	 * @see ListenerRegistry#addWeak(Object)
+	 */
+	public void addWeakClickListener(ClickListener cl) {
+		clickListeners.addWeak(cl);
 	}
 
 	/**
@@ -122,8 +172,67 @@ public class Window {
 	 *           be null or not be in the list nothing will happen.
 	 */
 	public void removeClickListener(ClickListener cl) {
-		if (cl != null)
+		if (cl != null) {
 			clickListeners.remove(cl);
+			clickDispatcher.remove(cl);
+		}
+	}
+
+	/**
+	 * Setter for the executor the ClickListeners are called on. By default
+	 * listeners are called on the event dispatch thread, which freezes the Window
+	 * until they return. With an executor, e.g.
+	 * {@code Executors.newVirtualThreadPerTaskExecutor()}, clicks are handed to
+	 * the executor and the Window stays responsive while listeners do lengthy
+	 * work.
+	 * <p>
+	 * Every listener still receives its ClickEvents one at a time and in the order
+	 * of the clicks. Listeners called on an executor must not change Swing
+	 * components directly but use {@link #invokeOnEventThread(Runnable)}.
+	 * 
+	 * @param executor is the executor. Should executor be null listeners will be
+	 *                 called on the event dispatch thread again once the events
+	 *                 still queued for them were delivered.
+	 */
+	public void setClickExecutor(Executor executor) {
+		clickDispatcher.setExecutor(executor);
+	}
+
+	/**
+	 * Getter for the executor the ClickListeners are called on.
+	 * 
+	 * @return the executor or null should listeners be called on the event
+	 *         dispatch thread.
+	 */
+	public Executor getClickExecutor() {
+		return clickDispatcher.getExecutor();
+	}
+
+	/**
+	 * Runs code on the event dispatch thread, e.g. to update control labels from
+	 * a ClickListener called on an executor. Should the calling thread be the
+	 * event dispatch thread the code is run immediately, otherwise it is run later
+	 * and this method returns without waiting for it.
+	 * 
+	 * @param r is the code to be run. Should r be null nothing will happen.
+	 */
+	public static void invokeOnEventThread(Runnable r) {
+		if (r == null)
+			return;
+
+		if (SwingUtilities.isEventDispatchThread())
+			r.run();
+		else
+			SwingUtilities.invokeLater(r);
+	}
+
+	/**
+	 * Getter for the map displayed in this Window.
+	 * 
+	 * @return the displayed map.
+	 */
+	public Map getMap() {
+		return map;
 	}
 
 	/**
@@ -296,8 +405,7 @@ public class Window {
 	 *                nothing will happen.
 	 */
 	public void setBackgroundColor(Color bgColor) {
-		if (bgColor != null)
-			this.bgColor = bgColor;
+		renderer.setBackgroundColor(bgColor);
 	}
 
 	/**
@@ -306,103 +414,83 @@ public class Window {
 	 * @return the background color of the map.
 	 */
 	public Color getBackgroundColor() {
-		return bgColor;
+		return renderer.getBackgroundColor();
 	}
 
 	/**
-	 * This class stores ViewSettings of the map viewport. It is meant to ease
-	 * conversion of screenspace coordinates and mapspace coordinates.
+	 * Setter for the way the countries are drawn.
 	 * 
-	 * @author Niklas S.
-	 *
+	 * @param mode the new render mode. Should mode be null nothing will happen.
+	 * @see RenderMode
 	 */
-	public class ViewSettings {
-
-		/**
-		 * The x coordinate of the center of the viewport on the map in mapspace
-		 * coordinates.
-		 */
-		public double cx;
-		/**
-		 * The y coordinate of the center of the viewport on the map in mapspace
-		 * coordinates.
-		 */
-		public double cy;
-		/**
-		 * The zoom level of the viewport. One pixel of screenspace equates to zoom
-		 * pixels of mapspace.
-		 */
-		public double zoom; // 1 px equates to "zoom" on the map
-
-		/**
-		 * This method creates a copy of this object with fresh values to be edited
-		 * without affecting the values of this object.
-		 * 
-		 * @return a copy of this ViewSettings object with the values of this one.
-		 */
-		public ViewSettings copy() {
-			ViewSettings copy = new ViewSettings();
-
-			copy.cx = this.cx;
-			copy.cy = this.cy;
-			copy.zoom = this.zoom;
-
-			return copy;
-		}
-
-		/**
-		 * This method converts the given mapspace coordinates to screenspace
-		 * coordinates based on the current viewport settings.
-		 * 
-		 * @param x is the x coordinate of the mapspace coordinates that are to be
-		 *          converted to screenspace coordinates.
-		 * @param y is the y coordinate of the mapspace coordinates that are to be
-		 *          converted to screenspace coordinates.
-		 * @return an int[] with the coordinates in screenspace that correspond to the
-		 *         specified coordinates in mapspace. The x coordinate will be at the
-		 *         index 0 the y coordinate will be at the index 1.
-		 */
-		public int[] convertToScreenSpace(double x, double y) {
-			int[] scS = new int[2];
-
-			x -= cx;
-			y -= cy;
-
-			int xOffset = (int) (x / zoom);
-			int yOffset = (int) (y / zoom);
-
-			scS[0] = xOffset + dl.getWidth() / 2;
-			scS[1] = yOffset + dl.getHeight() / 2;
+	public void setRenderMode(RenderMode mode) {
+		renderer.setRenderMode(mode);
+		repaints.requestRepaint();
+	}
 
-			return scS;
-		}
+	/**
+	 * Getter for the way the countries are drawn.
+	 * 
+	 * @return the render mode. The default is {@link RenderMode#PROJECTED}.
+	 */
+	public RenderMode getRenderMode() {
+		return renderer.getRenderMode();
+	}
 
-		/**
-		 * This method converts the given screenspace coordinates to mapspace
-		 * coordinates based on teh current viewport settings.
-		 * 
-		 * @param x is the x coordinate of the screenspace coordinates taht are to be
-		 *          converted to mapspace coordinates.
-		 * @param y is the y coordinate of the screenspace coordinates that are to be
-		 *          converted to mapspace coordinates.
-		 * @return a double[] with the coordinates in mapspace that correspond to the
-		 *         specified coordinates in screenspace. The x coordinate will be at the
-		 *         index 1 the y coordinate will be at the index 1.
-		 */
-		public double[] convertToMapSpace(int x, int y) {
-			double[] mS = new double[2];
+	/**
+	 * Setter for the maximum number of times per second the map is repainted.
+	 * Changes of the view or the hovered country that happen faster than that are
+	 * combined into one repaint. The control bar is not affected by this.
+	 * 
+	 * @param maxFps is the new frame rate cap. The default is 60. Should maxFps be
+	 *               less than 1 it will be set to 1.
+	 */
+	public void setMaxFps(int maxFps) {
+		repaints.setMaxFps(maxFps);
+	}
 
-			x -= dl.getWidth() / 2;
-			y -= dl.getHeight() / 2;
+	/**
+	 * Getter for the maximum number of times per second the map is repainted.
+	 * 
+	 * @return the frame rate cap.
+	 */
+	public int getMaxFps() {
+		return repaints.getMaxFps();
+	}
 
-			mS[0] = (double) x * zoom;
-			mS[1] = (double) y * zoom;
+	/**
+	 * Getter for the time it took to paint the most recent frame of the map. This
+	 * includes redrawing the map itself should the view or the countries have
+	 * changed, e.g. while panning.
+	 * 
+	 * @return the duration of the last frame in nanoseconds, -1 should no frame
+	 *         have been painted yet.
+	 */
+	public long getLastFrameTime() {
+		return lastFrameTime;
+	}
 
-			mS[0] += cx;
-			mS[1] += cy;
+	/**
+	 * Centers the view on the map once it is loaded and draws it for the first
+	 * time. Until then the Window only shows its background.
+	 */
+	private void mapLoaded() {
+		view = view.withCenter(map.getWidth() / 2, map.getHeight() / 2);
+		mapReady = true;
+		repaints.requestRepaint();
+	}
 
-			return mS;
-		}
+	/**
+	 * Requests a repaint after countries of the map changed. Called by the thread
+	 * that changed them; any number of changes made before the event dispatch
+	 * thread gets to handle them result in a single repaint request.
+	 */
+	private void mapChanged() {
+		if (mapChangePending.compareAndSet(false, true))
+			invokeOnEventThread(() -> {
+				mapChangePending.set(false);
+				repaints.requestRepaint();
+			});
 	}
 
 	/**
@@ -421,7 +509,7 @@ public class Window {
 		int rotation = 0;
 		int dragX = 0;
 		int dragY = 0;
-		double baseZoom = view.zoom;
+		double baseZoom = view.getZoom();
 
 		Dimension oldDimension = new Dimension(0, 0);
 
@@ -443,27 +531,29 @@ public class Window {
 			dragX = e.getX();
 			dragY = e.getY();
 
+			if (!mapReady)
+				return;
+
 			if (e.getButton() == MouseEvent.BUTTON1) {
 				int x = e.getX();
 				int y = e.getY();
 
-				if (view.convertToMapSpace(x, y)[0] < 0)
-					x += Map.getWidth() / view.zoom;
-				if (view.convertToMapSpace(x, y)[0] > Map.getWidth())
-					x -= Map.getWidth() / view.zoom;
+				if (view.toMapX(x) < 0)
+					x += map.getWidth() / view.getZoom();
+				if (view.toMapX(x) > map.getWidth())
+					x -= map.getWidth() / view.getZoom();
 
 				// trigger listener event
-				Country c = Map.traceCountry(x, y, view);
+				Country c = map.traceCountry(x, y, view);
 
 				// debugging printing mapCoordinates for finding coords in mapdata
-				// double[] mapSpace = view.convertToMapSpace(x, y);
-				// System.out.printf("%f, %f\n", mapSpace[0], mapSpace[1]);
+				// System.out.printf("%f, %f\n", view.toMapX(x), view.toMapY(y));
 
-				for (ClickListener cl : clickListeners)
-					cl.handleClick(new ClickEvent(c));
+				ClickEvent event = new ClickEvent(c);
+				clickListeners.forEach(cl -> clickDispatcher.dispatch(cl, event));
 			}
 
-			frame.repaint();
+			repaints.requestRepaint();
 		}
 
 		@Override
@@ -478,56 +568,79 @@ public class Window {
 			dragX = e.getX();
 			dragY = e.getY();
 
+			if (!mapReady)
+				return;
+
 			if (e.getModifiersEx() == MouseEvent.BUTTON3_DOWN_MASK) {
-				view.cx -= view.zoom * (float) dx;
-				view.cy -= view.zoom * (float) dy;
+				double cx = view.getCenterX() - view.getZoom() * (float) dx;
+				double cy = view.getCenterY() - view.getZoom() * (float) dy;
 
 				// horizontal world wrapping
-				if (view.cx < 0) {
-					view.cx = Map.getWidth();
+				if (cx < 0) {
+					cx = map.getWidth();
 					hoverOffset--;
 				}
-				if (view.cx > Map.getWidth()) {
-					view.cx = 0;
+				if (cx > map.getWidth()) {
+					cx = 0;
 					hoverOffset++;
 				}
 
 				// vertical capping
-				if (view.cy < 0)
-					view.cy = 0;
-				if (view.cy > Map.getHeight())
-					view.cy = Map.getHeight();
+				if (cy < 0)
+					cy = 0;
+				if (cy > map.getHeight())
+					cy = map.getHeight();
+
+				view = view.withCenter(cx, cy);
 			}
 
-			frame.repaint();
+			repaints.requestRepaint();
 		}
 
 		@Override
 		public void mouseMoved(MouseEvent e) {
+			if (!mapReady)
+				return;
+
 			int x = e.getX();
 			int y = e.getY();
 
+			int pastOffset = hoverOffset;
 			hoverOffset = 0;
-			if (view.convertToMapSpace(x, y)[0] < 0) {
-				x += Map.getWidth() / view.zoom;
+			if (view.toMapX(x) < 0) {
+				x += map.getWidth() / view.getZoom();
 				hoverOffset = 1;
 			}
-			if (view.convertToMapSpace(x, y)[0] > Map.getWidth()) {
-				x -= Map.getWidth() / view.zoom;
+			if (view.toMapX(x) > map.getWidth()) {
+				x -= map.getWidth() / view.getZoom();
 				hoverOffset = -1;
 			}
 
+			if (!doHover && !doTooltipText)
+				return;
+
+			Country tracedCountry = map.traceCountry(x, y, view);
+
 			if (doHover) {
 				Country pastCountry = hoveredCountry;
-				hoveredCountry = Map.traceCountry(x, y, view);
-				if (pastCountry != hoveredCountry)
-					frame.repaint();
+				hoveredCountry = tracedCountry;
+				if (pastCountry != hoveredCountry || pastOffset != hoverOffset) {
+					// only the area of the previously and the newly hovered country changes
+					Rectangle dirty = dl.hoverBounds(pastCountry, pastOffset);
+					Rectangle hovered = dl.hoverBounds(hoveredCountry, hoverOffset);
+					if (dirty == null)
+						dirty = hovered;
+					else if (hovered != null)
+						dirty.add(hovered);
+
+					if (dirty != null)
+						repaints.requestRepaint(dirty);
+				}
 			}
 
 			if (doTooltipText) {
-				Country hoveredCountry = Map.traceCountry(x, y, view);
-				if (hoveredCountry != null && !hoveredCountry.getTooltipText().equals(""))
-					dl.setToolTipText(hoveredCountry.getTooltipText());
+				if (tracedCountry != null && !tracedCountry.getTooltipText().equals(""))
+					dl.setToolTipText(tracedCountry.getTooltipText());
 				else
 					dl.setToolTipText(null);
 			}
@@ -535,6 +648,9 @@ public class Window {
 
 		@Override
 		public void mouseWheelMoved(MouseWheelEvent e) {
+			if (!mapReady)
+				return;
+
 			rotation += e.getWheelRotation();
 
 			double newZoom = baseZoom * (double) Math.pow(1.06, rotation);
@@ -542,12 +658,12 @@ public class Window {
 			double maxWidth = 2; // map widths
 			double minWidth = .05;
 
-			if (Map.getWidth() * maxWidth / newZoom < dl.getWidth()
-					|| Map.getWidth() * minWidth / newZoom > dl.getWidth()) {
+			if (map.getWidth() * maxWidth / newZoom < dl.getWidth()
+					|| map.getWidth() * minWidth / newZoom > dl.getWidth()) {
 				rotation -= e.getWheelRotation();
 			} else {
-				view.zoom = newZoom;
-				frame.repaint();
+				view = view.withZoom(newZoom);
+				repaints.requestRepaint();
 			}
 		}
 
@@ -557,17 +673,26 @@ public class Window {
 
 			// scale zoom
 			if (!oldDimension.equals(new Dimension(0, 0))) {
-				view.zoom /= (double) dl.getWidth() / (double) oldDimension.getWidth();
+				view = view.withZoom(view.getZoom() / ((double) dl.getWidth() / (double) oldDimension.getWidth()));
 				rotation = 0;
-				baseZoom = view.zoom;
+				baseZoom = view.getZoom();
 			}
 			oldDimension = new Dimension(dl.getWidth(), dl.getHeight());
+
+			// fonts are sized relative to the viewport
+			renderer.getResources().invalidate();
 		}
 	}
 
 	/**
 	 * This class is responsible for drawing the Map in its label. It extends JLabel
 	 * and only overrides it's paint(Graphics g) method.
+	 * <p>
+	 * The map itself is rendered into an offscreen base layer that is only redrawn
+	 * when the view, the size, the background color or the colors and labels of
+	 * the countries change. Every paint copies the base layer and draws the
+	 * hovered country on top, so hover changes only need to repaint the area of
+	 * the previously and the newly hovered country.
 	 * 
 	 * @author Niklas S.
 	 *
@@ -579,68 +704,195 @@ public class Window {
 		 */
 		private static final long serialVersionUID = 1L;
 
+		private BufferedImage baseLayer;
+		private Font labelFont;
+		private FontRenderContext labelContext; // context the hovered label was last drawn in
+
+		// state the base layer was rendered with
+		private ViewSettings baseView;
+		private RenderMode baseMode;
+		private int baseRevision;
+		private MapStyle baseStyle;
+		private Color baseBgColor;
+
+		@Override
+		public void setBounds(int x, int y, int width, int height) {
+			super.setBounds(x, y, width, height);
+			view = view.withViewportSize(width, height);
+		}
+
 		@Override
 		public void paint(Graphics g1) {
+			long start = System.nanoTime();
 			super.paint(g1);
 
 			Graphics2D g = (Graphics2D) g1;
 			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
 
-			g.setColor(bgColor);
-			g.fillRect(0, 0, this.getWidth(), this.getHeight());
+			if (getWidth() <= 0 || getHeight() <= 0)
+				return;
 
-			g.setFont(new Font("Arial", Font.BOLD, (int) (.03 * dl.getWidth())));
+			// painting the map before it is loaded would block the event dispatch thread
+			if (!mapReady) {
+				g.setColor(renderer.getBackgroundColor());
+				g.fillRect(0, 0, getWidth(), getHeight());
+				return;
+			}
 
-			Map.drawCountries(g, view);
-			ViewSettings right = view.copy();
-			right.cx -= Map.getWidth();
-			Map.drawCountries(g, right);
-			ViewSettings left = view.copy();
-			left.cx += Map.getWidth();
-			Map.drawCountries(g, left);
+			updateBaseLayer();
+			g.drawImage(baseLayer, 0, 0, null);
+
+			g.setFont(labelFont);
 
 			// hovered country
 			if (doHover && hoveredCountry != null) {
-				ViewSettings hoverView = view.copy();
-				hoverView.cx += hoverOffset * Map.getWidth();
+				ViewSettings hoverView = view.translate(hoverOffset * map.getWidth(), 0);
+
+				Color hoverColor = hoveredCountry.getHoverColor() != null ? hoveredCountry.getHoverColor()
+						: fallbackHoverColor;
+
+				// the label is centered where the base layer centered it
+				float labelX, labelY;
+				boolean hasShapes;
+				if (baseMode == RenderMode.TRANSFORMED) {
+					// the same path and transform the base layer was drawn with
+					AffineTransform screenTransform = g.getTransform();
+					Stroke screenStroke = g.getStroke();
+					g.transform(hoverView.getTransform());
+					g.setStroke(RenderResources.createOutlineStroke(hoverView.getZoom()));
+					Path2D path = hoveredCountry.getPath(Simplifier.level(hoverView.getZoom()));
+					g.setColor(hoverColor);
+					g.fill(path);
+					g.setColor(Color.BLACK);
+					g.draw(path);
+					g.setTransform(screenTransform);
+					g.setStroke(screenStroke);
+
+					double[] b = hoveredCountry.getBounds();
+					hasShapes = b[0] <= b[2];
+					labelX = hoverView.toScreenX((b[0] + b[2]) / 2);
+					labelY = hoverView.toScreenY((b[1] + b[3]) / 2);
+				} else {
+					Rectangle joinedBounds = null;
+					for (Shape s : hoveredCountry.generateShapes(hoverView)) {
+						g.setColor(hoverColor);
+						g.fill(s);
+						g.setColor(Color.BLACK);
+						g.draw(s);
+
+						if (joinedBounds == null)
+							joinedBounds = s.getBounds();
+						else
+							joinedBounds.add(s.getBounds());
+					}
 
-				Polygon joinedShape = new Polygon();
-				for (Shape s : hoveredCountry.generateShapes(hoverView)) {
-					if (hoveredCountry.getHoverColor() != null)
-						g.setColor(hoveredCountry.getHoverColor());
+					hasShapes = joinedBounds != null;
+					labelX = hasShapes ? (float) joinedBounds.getCenterX() : 0;
+					labelY = hasShapes ? (float) joinedBounds.getCenterY() : 0;
+				}
+
+				// label as drawn on the base layer
+				LabelLayout layout = hoveredCountry.getLabelLayout(baseStyle.getLabel(hoveredCountry), g.getFont(),
+						g.getFontRenderContext());
+				if (layout != null && hasShapes) {
+					if (Map.drawBlack(baseStyle.getColor(hoveredCountry)))
+						g.setColor(Color.BLACK);
 					else
-						g.setColor(fallbackHoverColor);
-					g.fill(s);
-					g.setColor(Color.BLACK);
-					g.draw(s);
+						g.setColor(Color.LIGHT_GRAY);
 
-					Rectangle boundingBox = s.getBounds();
-					joinedShape.addPoint(boundingBox.x, boundingBox.y);
-					joinedShape.addPoint(boundingBox.x + boundingBox.width, boundingBox.y + boundingBox.height);
+					layout.draw(g, labelX, labelY);
 				}
+				labelContext = g.getFontRenderContext();
+			}
 
-				if (hoveredCountry.getLabel() != null && !hoveredCountry.getLabel().isEmpty()) {
-					String[] lines = hoveredCountry.getLabel().split("\n");
+			lastFrameTime = System.nanoTime() - start;
+		}
 
-					float labelX = (float) joinedShape.getBounds().getCenterX();
-					float labelYBaseLine = (float) joinedShape.getBounds().getCenterY()
-							+ 1.8f * g.getFont().getSize() * lines.length / 2;
+		/**
+		 * Redraws the base layer should anything it depends on have changed since it
+		 * was last drawn.
+		 */
+		private void updateBaseLayer() {
+			boolean upToDate = baseLayer != null && baseLayer.getWidth() == getWidth()
+					&& baseLayer.getHeight() == getHeight() && view.equals(baseView)
+					&& renderer.getRenderMode() == baseMode && baseRevision == map.getRevision()
+					&& renderer.getBackgroundColor().equals(baseBgColor);
+			if (upToDate)
+				return;
+
+			if (baseLayer == null || baseLayer.getWidth() != getWidth() || baseLayer.getHeight() != getHeight()) {
+				GraphicsConfiguration gc = getGraphicsConfiguration();
+				if (gc != null)
+					baseLayer = gc.createCompatibleImage(getWidth(), getHeight());
+				else
+					baseLayer = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_RGB);
+				labelFont = renderer.getResources().getLabelFont(getWidth());
+			}
 
-					for (int i = 0; i < lines.length; i++) {
+			baseView = view;
+			baseMode = renderer.getRenderMode();
+			baseRevision = map.getRevision();
+			baseStyle = map.getStyle();
+			baseBgColor = renderer.getBackgroundColor();
+
+			Graphics2D g = baseLayer.createGraphics();
+			renderer.render(g, view, baseStyle);
+			if (labelContext == null)
+				labelContext = g.getFontRenderContext();
+			g.dispose();
+		}
 
-						int stringWidth = g.getFontMetrics().stringWidth(lines[i]);
+		/**
+		 * Calculates the area of the label that is covered when the specified country
+		 * is drawn as the hovered country, including its outline and label.
+		 * 
+		 * @param c      is the hovered country.
+		 * @param offset is the hover offset the country is drawn with.
+		 * @return the area in screenspace. Should c be null or have no shapes null
+		 *         will be returned.
+		 */
+		private Rectangle hoverBounds(Country c, int offset) {
+			if (c == null)
+				return null;
+
+			ViewSettings hoverView = view.translate(offset * map.getWidth(), 0);
+
+			Rectangle bounds = new Rectangle();
+			int centerX, centerY; // of the label
+			if (baseMode == RenderMode.TRANSFORMED) {
+				Rectangle2D mapBounds = c.getPath(Simplifier.level(hoverView.getZoom())).getBounds2D();
+				if (mapBounds.isEmpty())
+					return null;
+				bounds = hoverView.getTransform().createTransformedShape(mapBounds).getBounds();
+
+				double[] b = c.getBounds();
+				centerX = hoverView.toScreenX((b[0] + b[2]) / 2);
+				centerY = hoverView.toScreenY((b[1] + b[3]) / 2);
+			} else {
+				for (Shape s : c.generateShapes(hoverView))
+					if (bounds.isEmpty())
+						bounds = s.getBounds();
+					else
+						bounds.add(s.getBounds());
 
-						if (Map.drawBlack(hoveredCountry.getColor()))
-							g.setColor(Color.BLACK);
-						else
-							g.setColor(Color.LIGHT_GRAY);
+				if (bounds.isEmpty())
+					return null;
 
-						g.drawString(lines[i], labelX - stringWidth / 2,
-								labelYBaseLine - (1.8f * g.getFont().getSize() * (lines.length - i)) / 2);
-					}
-				}
+				centerX = (int) bounds.getCenterX();
+				centerY = (int) bounds.getCenterY();
+			}
+
+			LabelLayout layout = labelContext == null || baseStyle == null ? null
+					: c.getLabelLayout(baseStyle.getLabel(c), labelFont, labelContext);
+			if (layout != null) {
+				int halfWidth = (int) Math.ceil(layout.getWidth() / 2) + 1;
+				bounds.add(new Rectangle(centerX - halfWidth, centerY - (int) Math.ceil(layout.getAbove()),
+						halfWidth * 2 + 1, (int) Math.ceil(layout.getAbove() + layout.getBelow()) + 1));
 			}
+
+			bounds.grow(2, 2); // outline
+			return bounds;
 		}
 	}
 }
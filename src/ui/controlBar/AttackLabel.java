@@ -2,8 +2,6 @@ package ui.controlBar;
 
 import java.awt.Dimension;
 import java.awt.Font;
-import java.util.ArrayList;
-import java.util.List;
 
 import javax.swing.GroupLayout;
 import javax.swing.JButton;
@@ -12,6 +10,7 @@ import javax.swing.JSlider;
 import javax.swing.SwingConstants;
 
 import ui.Language;
+import ui.ListenerRegistry;
 
 /**
  * This class is the Label that is to be set whenever a player is currently
@@ -32,7 +31,7 @@ public class AttackLabel extends JLabel {
 	private String attacker;
 	private String defender;
 
-	private List<AttackLabelListener> listeners;
+	private final ListenerRegistry<AttackLabelListener> listeners = new ListenerRegistry<>();
 
 	/**
 	 * The constructor creates a new AttackLabel without attaching it to any Window.
@@ -54,8 +53,6 @@ public class AttackLabel extends JLabel {
 	public AttackLabel(String attacker, String defender, int minTroops, int maxTroops) {
 		this.setMaximumSize(new Dimension(9999999, 500));
 
-		listeners = new ArrayList<>();
-
 		if (attacker == null)
 			attacker = "";
 		if (defender == null)
@@ -77,20 +74,17 @@ public class AttackLabel extends JLabel {
 		troopCount.setOpaque(false);
 		troopCount.addChangeListener(e -> {
 			if (!troopCount.getValueIsAdjusting())
-				for (AttackLabelListener al : listeners)
-					al.attackActionPerformed(AttackLabelListener.TYPE_TROOP_COUNT_CHANGED);
+				listeners.forEach(al -> al.attackActionPerformed(AttackLabelListener.TYPE_TROOP_COUNT_CHANGED));
 		});
 
 		attackButton = new JButton(Language.get("attack_confirm"));
 		attackButton.addActionListener(ae -> {
-			for (AttackLabelListener al : listeners)
-				al.attackActionPerformed(AttackLabelListener.TYPE_ATTACK);
+			listeners.forEach(al -> al.attackActionPerformed(AttackLabelListener.TYPE_ATTACK));
 		});
 
 		dismissButton = new JButton(Language.get("attack_dismiss"));
 		dismissButton.addActionListener(ae -> {
-			for (AttackLabelListener al : listeners)
-				al.attackActionPerformed(AttackLabelListener.TYPE_DISMISS);
+			listeners.forEach(al -> al.attackActionPerformed(AttackLabelListener.TYPE_DISMISS));
 		});
 
 		GroupLayout gl = new GroupLayout(this);
@@ -166,6 +160,18 @@ public class AttackLabel extends JLabel {
 		listeners.add(listener);
 	}
 
+	/**
+	 * This method adds a new {@link AttackLabelListener} that is only weakly
+	 * referenced by this label. It is removed automatically once nothing else
+	 * references it, e.g. when the game session it belongs to is discarded without
+	 * removing it.
+	 * 
+	 * @param listener is the listener that is to be added.
+	 */
+	public void addWeakAttackLabelListener(AttackLabelListener listener) {
+		listeners.addWeak(listener);
+	}
+
 	/**
 	 * This method removes an {@link AttackLabelListener} from the list of
 	 * listeners. This means that it's method will no longer be called.
@@ -173,7 +179,7 @@ public class AttackLabel extends JLabel {
 	 * @param listener is the {@link Listener} that is to be removed.
 	 */
 	public void removeAttackLabelListener(AttackLabelListener listener) {
-		listeners.add(listener);
+		listeners.remove(listener);
 	}
 
 	/**
@@ -2,8 +2,6 @@ package ui.controlBar;
 
 import java.awt.Dimension;
 import java.awt.Font;
-import java.util.ArrayList;
-import java.util.List;
 
 import javax.swing.GroupLayout;
 import javax.swing.JButton;
@@ -12,6 +10,7 @@ import javax.swing.JSlider;
 import javax.swing.SwingConstants;
 
 import ui.Language;
+import ui.ListenerRegistry;
 
 /**
  * This class is the label that is to be set whenever a player is currently
@@ -31,7 +30,7 @@ public class DefendLabel extends JLabel {
 
 	private String attackedCountry;
 
-	private List<DefendLabelListener> listeners;
+	private final ListenerRegistry<DefendLabelListener> listeners = new ListenerRegistry<>();
 
 	/**
 	 * The constructor creates a new DefendLabel without attaching it to any Window.
@@ -47,9 +46,6 @@ public class DefendLabel extends JLabel {
 	 *                        than minTroops it will be set to minTroops.
 	 */
 	public DefendLabel(String attackedCountry, int minTroops, int maxTroops) {
-
-		listeners = new ArrayList<>();
-
 		this.attackedCountry = attackedCountry;
 		if (attackedCountry == null)
 			this.attackedCountry = "";
@@ -69,14 +65,12 @@ public class DefendLabel extends JLabel {
 		troopCount.setOpaque(false);
 		troopCount.addChangeListener(e -> {
 			if (!troopCount.getValueIsAdjusting())
-				for (DefendLabelListener dl : listeners)
-					dl.defendActionPerformed(DefendLabelListener.TYPE_TROOP_COUNT_CHANGED);
+				listeners.forEach(dl -> dl.defendActionPerformed(DefendLabelListener.TYPE_TROOP_COUNT_CHANGED));
 		});
 
 		defendButton = new JButton(Language.get("defend_confirm"));
 		defendButton.addActionListener(ae -> {
-			for (DefendLabelListener dl : listeners)
-				dl.defendActionPerformed(DefendLabelListener.TYPE_DEFEND);
+			listeners.forEach(dl -> dl.defendActionPerformed(DefendLabelListener.TYPE_DEFEND));
 		});
 
 		GroupLayout gl = new GroupLayout(this);
@@ -126,6 +120,18 @@ public class DefendLabel extends JLabel {
 		listeners.add(listener);
 	}
 
+	/**
+	 * This method adds a new {@link DefendLabelListener} that is only weakly
+	 * referenced by this label. It is removed automatically once nothing else
+	 * references it, e.g. when the game session it belongs to is discarded without
+	 * removing it.
+	 * 
+	 * @param listener is the listener that is to be added.
+	 */
+	public void addWeakDefendLabelListener(DefendLabelListener listener) {
+		listeners.addWeak(listener);
+	}
+
 	/**
 	 * This method removes a {@link DefendLabelListener} from the list of listeners.
 	 * This means that it's method will no longer be called.
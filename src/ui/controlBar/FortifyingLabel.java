@@ -2,8 +2,6 @@ package ui.controlBar;
 
 import java.awt.Dimension;
 import java.awt.Font;
-import java.util.ArrayList;
-import java.util.List;
 
 import javax.swing.GroupLayout;
 import javax.swing.JButton;
@@ -12,6 +10,7 @@ import javax.swing.JSlider;
 import javax.swing.SwingConstants;
 
 import ui.Language;
+import ui.ListenerRegistry;
 
 /**
  * This class is the label that is to be set whenever a player is currently
@@ -31,7 +30,7 @@ public class FortifyingLabel extends JLabel {
 
 	private String fortifyingCountry;
 
-	private List<FortifyLabelListener> listeners;
+	private final ListenerRegistry<FortifyLabelListener> listeners = new ListenerRegistry<>();
 
 	/**
 	 * The constructor creates a new FortifyingLabel without attaching it to any
@@ -49,9 +48,6 @@ public class FortifyingLabel extends JLabel {
 	 *                          smaller than minTroops it will be set to minTroops.
 	 */
 	public FortifyingLabel(String fortifyingCountry, int minTroops, int maxTroops) {
-
-		listeners = new ArrayList<>();
-
 		if (fortifyingCountry == null)
 			fortifyingCountry = "";
 		this.fortifyingCountry = fortifyingCountry;
@@ -71,14 +67,12 @@ public class FortifyingLabel extends JLabel {
 		troopCount.setOpaque(false);
 		troopCount.addChangeListener(e -> {
 			if (!troopCount.getValueIsAdjusting())
-				for (FortifyLabelListener dl : listeners)
-					dl.fortifyActionPerformed(FortifyLabelListener.TYPE_TROOP_COUNT_CHANGED);
+				listeners.forEach(dl -> dl.fortifyActionPerformed(FortifyLabelListener.TYPE_TROOP_COUNT_CHANGED));
 		});
 
 		fortifyButton = new JButton(Language.get("fortify_confirm"));
 		fortifyButton.addActionListener(ae -> {
-			for (FortifyLabelListener dl : listeners)
-				dl.fortifyActionPerformed(FortifyLabelListener.TYPE_FORTIFY);
+			listeners.forEach(dl -> dl.fortifyActionPerformed(FortifyLabelListener.TYPE_FORTIFY));
 		});
 
 		GroupLayout gl = new GroupLayout(this);
@@ -128,6 +122,18 @@ public class FortifyingLabel extends JLabel {
 		listeners.add(listener);
 	}
 
+	/**
+	 * This method adds a new {@link FortifyLabelListener} that is only weakly
+	 * referenced by this label. It is removed automatically once nothing else
+	 * references it, e.g. when the game session it belongs to is discarded without
+	 * removing it.
+	 * 
+	 * @param listener is the listener that is to be added.
+	 */
+	public void addWeakFortifyLabelListener(FortifyLabelListener listener) {
+		listeners.addWeak(listener);
+	}
+
 	/**
 	 * This method removes a {@link FortifyLabelListener} from the list of
 	 * listeners. This means that it's method will no longer be called.
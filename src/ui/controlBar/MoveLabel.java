@@ -2,8 +2,6 @@ package ui.controlBar;
 
 import java.awt.Dimension;
 import java.awt.Font;
-import java.util.ArrayList;
-import java.util.List;
 
 import javax.swing.GroupLayout;
 import javax.swing.JButton;
@@ -12,6 +10,7 @@ import javax.swing.JSlider;
 import javax.swing.SwingConstants;
 
 import ui.Language;
+import ui.ListenerRegistry;
 
 /**
  * This class is the label that is to be visible whenever a player is currently
@@ -33,7 +32,7 @@ public class MoveLabel extends JLabel {
 	private String moveFrom;
 	private String moveTo;
 
-	private List<MoveLabelListener> listeners;
+	private final ListenerRegistry<MoveLabelListener> listeners = new ListenerRegistry<>();
 
 	/**
 	 * The constructor creates a new FortifyingLabel without attaching it to any
@@ -53,8 +52,6 @@ public class MoveLabel extends JLabel {
 	 *                  minTroops it will be set to minTroops.
 	 */
 	public MoveLabel(String moveFrom, String moveTo, int minTroops, int maxTroops) {
-		listeners = new ArrayList<>();
-
 		if (moveFrom == null)
 			moveFrom = "";
 		if (moveTo == null)
@@ -77,14 +74,12 @@ public class MoveLabel extends JLabel {
 		troopCount.setOpaque(false);
 		troopCount.addChangeListener(e -> {
 			if (!troopCount.getValueIsAdjusting())
-				for (MoveLabelListener dl : listeners)
-					dl.moveActionPerformed(MoveLabelListener.TYPE_TROOP_COUNT_CHANGED);
+				listeners.forEach(dl -> dl.moveActionPerformed(MoveLabelListener.TYPE_TROOP_COUNT_CHANGED));
 		});
 
 		moveButton = new JButton(Language.get("move_confirm"));
 		moveButton.addActionListener(a -> {
-			for (MoveLabelListener ml : listeners)
-				ml.moveActionPerformed(MoveLabelListener.TYPE_MOVE);
+			listeners.forEach(ml -> ml.moveActionPerformed(MoveLabelListener.TYPE_MOVE));
 		});
 
 		GroupLayout gl = new GroupLayout(this);
@@ -159,6 +154,18 @@ public class MoveLabel extends JLabel {
 		listeners.add(listener);
 	}
 
+	/**
+	 * This method adds a new {@link MoveLabelListener} that is only weakly
+	 * referenced by this label. It is removed automatically once nothing else
+	 * references it, e.g. when the game session it belongs to is discarded without
+	 * removing it.
+	 * 
+	 * @param listener is the listener that is to be added.
+	 */
+	public void addWeakMoveLabelListener(MoveLabelListener listener) {
+		listeners.addWeak(listener);
+	}
+
 	/**
 	 * This method removes a {@link MoveLabelListener} from the list of listeners.
 	 * This means that it's method will no longer be called.
@@ -2,8 +2,6 @@ package ui.controlBar;
 
 import java.awt.Dimension;
 import java.awt.Font;
-import java.util.ArrayList;
-import java.util.List;
 
 import javax.swing.GroupLayout;
 import javax.swing.JButton;
@@ -12,6 +10,7 @@ import javax.swing.JLabel;
 import javax.swing.SwingConstants;
 
 import ui.Language;
+import ui.ListenerRegistry;
 import ui.controlBar.MoveLabel.MoveLabelListener;
 
 /**
@@ -33,7 +32,7 @@ public class PreparationLabel extends JLabel {
 	private int troops;
 	private String country;
 
-	private List<PreparationLabelListener> listeners;
+	private final ListenerRegistry<PreparationLabelListener> listeners = new ListenerRegistry<>();
 
 	/**
 	 * The constructor creates a new PreparationLabel without attaching it to any
@@ -50,8 +49,6 @@ public class PreparationLabel extends JLabel {
 		this.troops = troops;
 		this.country = country;
 
-		listeners = new ArrayList<>();
-
 		this.setMaximumSize(new Dimension(9999999, 500));
 
 		title = new JLabel("", SwingConstants.CENTER);
@@ -62,14 +59,12 @@ public class PreparationLabel extends JLabel {
 		fastMode.setFont(new Font("Dialog", Font.PLAIN, 12));
 		fastMode.setOpaque(false);
 		fastMode.addChangeListener(e -> {
-			for (PreparationLabelListener dl : listeners)
-				dl.preparationActionPerformed(PreparationLabelListener.TYPE_FAST_MODE_CHANGED);
+			listeners.forEach(dl -> dl.preparationActionPerformed(PreparationLabelListener.TYPE_FAST_MODE_CHANGED));
 		});
 
 		deployButton = new JButton(Language.get("preparation_confirm"));
 		deployButton.addActionListener(a -> {
-			for (PreparationLabelListener dl : listeners)
-				dl.preparationActionPerformed(PreparationLabelListener.TYPE_DEPLOY);
+			listeners.forEach(dl -> dl.preparationActionPerformed(PreparationLabelListener.TYPE_DEPLOY));
 		});
 
 		GroupLayout gl = new GroupLayout(this);
@@ -143,6 +138,18 @@ public class PreparationLabel extends JLabel {
 		listeners.add(listener);
 	}
 
+	/**
+	 * This method adds a new {@link PreparationLabelListener} that is only weakly
+	 * referenced by this label. It is removed automatically once nothing else
+	 * references it, e.g. when the game session it belongs to is discarded without
+	 * removing it.
+	 * 
+	 * @param listener is the listener that is to be added.
+	 */
+	public void addWeakPreparationLabelListener(PreparationLabelListener listener) {
+		listeners.addWeak(listener);
+	}
+
 	/**
 	 * This method removes a {@link MoveLabelListener} from the list of listeners.
 	 * This means that it's method will no longer be called.
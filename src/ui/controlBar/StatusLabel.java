@@ -12,6 +12,7 @@ import javax.swing.JSeparator;
 import javax.swing.SwingConstants;
 
 import ui.Language;
+import ui.ListenerRegistry;
 
 /**
  * This class is the label that is shows status information such as the
@@ -36,7 +37,7 @@ public class StatusLabel extends JLabel {
 	private String reinforcements;
 	private String bonus;
 
-	private List<StatusLabelListener> listeners;
+	private final ListenerRegistry<StatusLabelListener> listeners = new ListenerRegistry<>();
 
 	/**
 	 * The constructor creates a new StatusLabel without attaching it to any Window.
@@ -70,8 +71,6 @@ public class StatusLabel extends JLabel {
 			if (s != null && !s.isEmpty())
 				newMapModes.add(s);
 
-		listeners = new ArrayList<>();
-
 		this.setMaximumSize(new Dimension(9999999, 500));
 
 		title = new JLabel("<html><div style='text-align: center;'>" + Language.get("status_title") + "</div>",
@@ -88,8 +87,7 @@ public class StatusLabel extends JLabel {
 		mapModeSelector.setMaximumSize(new Dimension(99999999, 20));
 		mapModeSelector.setFont(new Font("Dialog", Font.PLAIN, 12));
 		mapModeSelector.addActionListener(ae -> {
-			for (StatusLabelListener sl : listeners)
-				sl.statusActionPerformed(StatusLabelListener.TYPE_MAP_MODE_CHANGED);
+			listeners.forEach(sl -> sl.statusActionPerformed(StatusLabelListener.TYPE_MAP_MODE_CHANGED));
 		});
 
 		GroupLayout gl = new GroupLayout(this);
@@ -161,6 +159,18 @@ public class StatusLabel extends JLabel {
 		listeners.add(listener);
 	}
 
+	/**
+	 * This method adds a new {@link StatusLabelListener} that is only weakly
+	 * referenced by this label. It is removed automatically once nothing else
+	 * references it, e.g. when the game session it belongs to is discarded without
+	 * removing it.
+	 * 
+	 * @param listener is the listener that is to be added.
+	 */
+	public void addWeakStatusLabelListener(StatusLabelListener listener) {
+		listeners.addWeak(listener);
+	}
+
 	/**
 	 * This method removes a {@link StatusLabelListener} from the list of listeners.
 	 * This means that it's method will no longer be called.